@@ -1,32 +1,41 @@
 package com.parker.david;
 
-import java.util.ArrayList;
-import java.util.Random;
-import java.util.concurrent.ThreadLocalRandom;
+import com.parker.david.archive.SolutionArchive;
+
+import java.util.SplittableRandom;
 
 public class AcceptanceComputer {
-	private static final Random randomNumberGenerator = ThreadLocalRandom.current();
 
 	/**
-	 * calculate the energy difference between new solution and old solution
+	 * calculate the energy difference between new solution and old solution.
+	 * the energy is measured over the archive together with the two solutions, so on top of the archive counts
+	 * the old and new solution are compared with each other
+	 *
+	 * @param archiveSize            the number of solutions in the archive
+	 * @param oldSolutionDominatedBy the number of archived solutions that dominate the old solution
+	 * @param newSolutionDominatedBy the number of archived solutions that dominate the new solution
+	 * @param newComparedToOld       the new solution compared to the old, 1 if new dominates old, -1 if old dominates new, 0 otherwise
+	 */
+	public static double getEnergyDifference(int archiveSize, int oldSolutionDominatedBy, int newSolutionDominatedBy, int newComparedToOld) {
+		//since energy difference is ((#slns dominating new sln) - (#slns dominating old sln))/(archive+2)
+		//just increment when a solution dominates the new sln, and decrement when it dominates the old sln
+		double energy = newSolutionDominatedBy - oldSolutionDominatedBy - newComparedToOld;
+		return energy / (archiveSize + 2);
+	}
+
+	/**
+	 * the acceptance rule itself, accept if the rejection threshold is within the acceptance probability
 	 *
-	 * @param archive     the current archive
-	 * @param oldSolution the solution we are making the movement from
-	 * @param newSolution the solution we are moving towards
+	 * @param deltaE             the energy difference of the move
+	 * @param temperature        the current temperature
+	 * @param rejectionThreshold a uniform random number between 0 and 1
 	 */
-	private static double getEnergyDifference(SolutionArchive archive, CandidateSolution oldSolution, CandidateSolution newSolution) {
-
-		ArrayList<CandidateSolution> allSolutionsConsidered = (ArrayList<CandidateSolution>) archive.getArchive().clone();
-		allSolutionsConsidered.add(oldSolution);
-		allSolutionsConsidered.add(newSolution);
-		double energy = 0;
-		//since energy difference is ((#slns dominated by old sln) - (#slns dominated by new sln))/(archive+2)
-		//just increment when old sln dominates, and decrement when new sln dominates
-		for (CandidateSolution solution : allSolutionsConsidered) {
-			if (solution.dominates(oldSolution)) energy++;
-			if (solution.dominates(newSolution)) energy--;
-		}
-		return energy / allSolutionsConsidered.size();
+	public static boolean isAccepted(double deltaE, double temperature, double rejectionThreshold) {
+		// calculate acceptance probability
+		double acceptanceProbability = Math.min(1, Math.exp(-deltaE / temperature));
+
+		//return true if accepted, false if rejected
+		return !(rejectionThreshold > acceptanceProbability);
 	}
 
 	/**
@@ -36,17 +45,31 @@ public class AcceptanceComputer {
 	 * @param oldSolution the solution moving from
 	 * @param newSolution the solution we are moving to
 	 * @param temperature the current temperature
+	 * @param random      the random number source for the rejection threshold
 	 */
-	public static boolean isAccepted(SolutionArchive archive, CandidateSolution oldSolution, CandidateSolution newSolution, double temperature) {
-		// calculate acceptance probability
-		double deltaE = AcceptanceComputer.getEnergyDifference(archive, newSolution, oldSolution);
-		double acceptanceProbability = Math.min(1, Math.exp(-deltaE / temperature));
+	public static boolean isAccepted(SolutionArchive archive, CandidateSolution oldSolution, CandidateSolution newSolution, double temperature, SplittableRandom random) {
+		return isAccepted(archive.size(), oldSolution, archive.countDominating(oldSolution), newSolution, archive.countDominating(newSolution), temperature, random);
+	}
 
-		// stochastically generate our rejection threshold between 0 and 1
-		double rejectionThreshold = randomNumberGenerator.nextDouble();
+	/**
+	 * boolean check to see if a solution is accepted or rejected, given the archive domination counts of both solutions.
+	 * the count for the old solution only changes when the archive does, so a search can carry it between iterations
+	 * instead of comparing the old solution against the whole archive again
+	 *
+	 * @param archiveSize            the number of solutions in the archive
+	 * @param oldSolution            the solution moving from
+	 * @param oldSolutionDominatedBy the number of archived solutions that dominate the old solution
+	 * @param newSolution            the solution we are moving to
+	 * @param newSolutionDominatedBy the number of archived solutions that dominate the new solution
+	 * @param temperature            the current temperature
+	 * @param random                 the random number source for the rejection threshold
+	 */
+	public static boolean isAccepted(int archiveSize, CandidateSolution oldSolution, int oldSolutionDominatedBy, CandidateSolution newSolution, int newSolutionDominatedBy, double temperature, SplittableRandom random) {
+		double deltaE = AcceptanceComputer.getEnergyDifference(archiveSize, oldSolutionDominatedBy, newSolutionDominatedBy, newSolution.compareTo(oldSolution));
 
-		//return true if accepted, false if rejected
-		return !(rejectionThreshold > acceptanceProbability);
+		// stochastically generate our rejection threshold between 0 and 1
+		double rejectionThreshold = random.nextDouble();
 
+		return isAccepted(deltaE, temperature, rejectionThreshold);
 	}
 }
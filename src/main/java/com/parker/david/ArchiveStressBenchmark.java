@@ -0,0 +1,141 @@
+package com.parker.david;
+
+import com.parker.david.archive.CopyOnWriteArchive;
+import com.parker.david.archive.ListArchive;
+import com.parker.david.archive.NDTreeArchive;
+import com.parker.david.archive.SolutionArchive;
+import com.parker.david.archive.SynchronizedArchive;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * a stress test of the archives that search threads can share. several threads each check and insert their own
+ * solutions into one archive at once, then the front is checked against the front a {@link ListArchive} builds from
+ * the same solutions on one thread. it must hold exactly the same solutions and no member may dominate another.
+ * prints the throughput of each archive at each thread count, and exits with status 1 if any front is wrong.
+ * <p>
+ * run with: java -cp target/classes com.parker.david.ArchiveStressBenchmark [insertions] [threads...]
+ */
+public class ArchiveStressBenchmark {
+
+	public static void main(String[] args) throws InterruptedException, ExecutionException {
+		final int insertions = (args.length > 0) ? Integer.parseInt(args[0]) : 400000; // the total insertions per run, shared between the threads
+		final int[] threadCounts = {1, 4, 16, 32};
+
+		int[] threads = threadCounts;
+		if (args.length > 1) {
+			threads = new int[args.length - 1];
+			for (int i = 1; i < args.length; i++) {
+				threads[i - 1] = Integer.parseInt(args[i]);
+			}
+		}
+
+		//two objectives with a curved front, most solutions land near it so the archive stays busy
+		ObjectiveSet objectives = new ObjectiveSet();
+		objectives.add(ObjectiveFunction.Type.Minimisation, x -> x[0]);
+		objectives.add(ObjectiveFunction.Type.Minimisation, x -> 1 - Math.sqrt(x[0]) + Math.abs(x[1]));
+		CandidateSolutionFactory solutionFactory = new CandidateSolutionFactory(objectives, 3);
+
+		boolean allCorrect = true;
+		for (int threadCount : threads) {
+			CandidateSolution[][] solutions = solutionsPerThread(solutionFactory, threadCount, insertions / threadCount);
+			List<CandidateSolution> expected = sequentialFront(solutions);
+
+			allCorrect &= run("copy on write", new CopyOnWriteArchive(), solutions, expected);
+			allCorrect &= run("synchronized list", new SynchronizedArchive(new ListArchive()), solutions, expected);
+			allCorrect &= run("synchronized nd-tree", new SynchronizedArchive(new NDTreeArchive(objectives)), solutions, expected);
+		}
+
+		if (!allCorrect)
+			System.exit(1);
+	}
+
+	/**
+	 * evaluated solutions for each thread to insert, from a seed per thread so every run inserts the same ones
+	 */
+	private static CandidateSolution[][] solutionsPerThread(CandidateSolutionFactory solutionFactory, int threadCount, int perThread) {
+		CandidateSolution[][] solutions = new CandidateSolution[threadCount][perThread];
+		for (int t = 0; t < threadCount; t++) {
+			SplittableRandom random = new SplittableRandom(7919L * t + threadCount);
+			for (int i = 0; i < perThread; i++) {
+				double[] x = {random.nextDouble(), random.nextDouble() * random.nextDouble() * 0.05};
+				solutions[t][i] = solutionFactory.getCandidateSolution(x);
+				solutions[t][i].getFitnessValues();
+			}
+		}
+		return solutions;
+	}
+
+	/**
+	 * the front of every solution, built on one thread
+	 */
+	private static List<CandidateSolution> sequentialFront(CandidateSolution[][] solutions) {
+		ListArchive archive = new ListArchive();
+		for (CandidateSolution[] row : solutions) {
+			for (CandidateSolution solution : row) {
+				archive.addIfNotDominated(solution);
+			}
+		}
+		return archive.getArchive();
+	}
+
+	/**
+	 * insert each thread's solutions into the archive from its own thread, each insertion after a dominance check as the
+	 * searches make, then check the front
+	 *
+	 * @return true if the front is correct
+	 */
+	private static boolean run(String name, SolutionArchive archive, CandidateSolution[][] solutions, List<CandidateSolution> expected) throws InterruptedException, ExecutionException {
+		int threadCount = solutions.length;
+		ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+		List<Callable<Long>> jobs = new ArrayList<>();
+		for (CandidateSolution[] row : solutions) {
+			jobs.add(() -> {
+				long dominating = 0;
+				for (CandidateSolution solution : row) {
+					dominating += archive.countDominating(solution, 1);
+					archive.addIfNotDominated(solution);
+				}
+				return dominating;
+			});
+		}
+
+		long start = System.nanoTime();
+		for (Future<Long> job : executor.invokeAll(jobs)) {
+			job.get();
+		}
+		double seconds = (System.nanoTime() - start) / 1e9;
+		executor.shutdown();
+
+		//the front must be the same set of solutions, and mutually non-dominated
+		List<CandidateSolution> front = archive.getArchive();
+		int errors = 0;
+		for (CandidateSolution a : front) {
+			for (CandidateSolution b : front) {
+				if (a.dominates(b))
+					errors++;
+			}
+		}
+		if (front.size() != expected.size())
+			errors++;
+		ListArchive check = new ListArchive();
+		for (CandidateSolution solution : expected) {
+			check.addIfNotDominated(solution);
+		}
+		for (CandidateSolution solution : front) {
+			if (check.countDominating(solution) != 0 || check.addIfNotDominated(solution))
+				errors++;
+		}
+
+		long operations = 2L * threadCount * solutions[0].length;
+		System.out.printf("%-21s threads=%2d front=%4d operations/s=%10.0f %s%n", name, threadCount, front.size(), operations / seconds, (errors == 0) ? "ok" : errors + " errors");
+		return errors == 0;
+	}
+}
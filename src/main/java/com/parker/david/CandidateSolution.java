@@ -3,11 +3,12 @@ package com.parker.david;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.stream.Collectors;
 
 /**
  * This is our data class that stores a candidate solution.
- * It is mostly just a wrapper for arraylist, but also contains a method that makes a deepcopy of itself
+ * It is mostly just a wrapper for a double array, but also contains a method that makes a deepcopy of itself
  * (thus creating a new entity that is the same as this entity with underlying data
  * that is a copy of the previous object instead of a reference to the same underlying data)
  */
@@ -24,9 +25,46 @@ public class CandidateSolution implements Comparable<CandidateSolution> {
 	private final CandidateSolutionFactory factory;
 
 	/**
-	 * our decision variables encoded as a Double vector
+	 * our decision variables encoded as a primitive double vector
 	 */
-	private final ArrayList<Double> decisionVariables;
+	private final double[] decisionVariables;
+
+	/**
+	 * the objective values of this solution, evaluated on first access and reused thereafter.
+	 * null until evaluated, and reset to null whenever a decision variable changes.
+	 * volatile so a solution evaluated on one search thread can be read safely on another
+	 */
+	private volatile double[] fitnesses;
+
+	/**
+	 * a hash of the decision variables, scaled by the rounding factor to whole numbers, computed on first use.
+	 * 0 until computed, and reset to 0 whenever a decision variable changes. being a single field, a thread that
+	 * races another to compute it at worst computes it again
+	 */
+	private int decisionVariableHash;
+
+	/**
+	 * the solution this one was moved from and the decision variables the move changed, so objectives can be
+	 * evaluated from the original's fitness. null unless a neighbourhood generator recorded the move, and dropped once
+	 * this solution is evaluated or changed again
+	 */
+	private CandidateSolution moveOrigin;
+	private int[] moveChangedVariables;
+
+	/**
+	 * the number of moves in a row whose fitnesses were carried from the last solution evaluated in full up to this one,
+	 * 0 if this solution was evaluated in full. past {@link ObjectiveSet#movesBetweenFullEvaluations} a move is
+	 * evaluated in full, so rounding in the carried fitnesses can't build up
+	 */
+	private int movesSinceFullEvaluation = 0;
+
+	/**
+	 * whether this solution is a proposal buffer that the search writes one proposal after another into, see
+	 * {@link #reusableCopy()}. a buffer keeps its fitness array when its decision variables change, and evaluates the
+	 * next proposal into it instead of allocating a new one
+	 */
+	private boolean reusable = false;
+	private double[] spareFitnesses;
 
 	/**
 	 * the number of decision variables in this problem, needed for iterating through the candidate solution
@@ -34,7 +72,7 @@ public class CandidateSolution implements Comparable<CandidateSolution> {
 	 * @return the number of decision variables
 	 */
 	public int numberOfDecisionVariables() {
-		return decisionVariables.size();
+		return decisionVariables.length;
 	}
 
 	/**
@@ -43,10 +81,35 @@ public class CandidateSolution implements Comparable<CandidateSolution> {
 	 * getIthDecisionVariable(0) = 5, 1 = 3, etc
 	 *
 	 * @param i the ith decision variable's value
-	 * @return a Double corresponding to the decision variable at the ith position
+	 * @return a double corresponding to the decision variable at the ith position
+	 */
+	public double getIthDecisionVariable(int i) {
+		return decisionVariables[i];
+	}
+
+	/**
+	 * the decision variables themselves rather than a copy, for evaluating objectives without copying. must not be modified
+	 */
+	double[] decisionVariableArray() {
+		return decisionVariables;
+	}
+
+	/**
+	 * the rounding factor of the factory that made this solution, 10 to the power of the number of decimals kept
+	 */
+	double roundingFactor() {
+		return factory.roundingFactor;
+	}
+
+	/**
+	 * round a value the way the factory rounds decision variables, so a value set already rounded stays the same
+	 * when the solution is copied
+	 *
+	 * @param value the value to round
+	 * @return the rounded value
 	 */
-	public Double getIthDecisionVariable(int i) {
-		return decisionVariables.get(i);
+	public double round(double value) {
+		return factory.round(value);
 	}
 
 	/**
@@ -55,21 +118,60 @@ public class CandidateSolution implements Comparable<CandidateSolution> {
 	 * @param i        the ith decision variable's value
 	 * @param newValue the value to set the decision variable to
 	 */
-	public void setIthDecisionVariable(int i, Double newValue) {
-		decisionVariables.set(i, newValue);
+	public void setIthDecisionVariable(int i, double newValue) {
+		decisionVariables[i] = newValue;
+		if (reusable && fitnesses != null)
+			spareFitnesses = fitnesses;
+		fitnesses = null;
+		decisionVariableHash = 0;
+		moveOrigin = null;
+		moveChangedVariables = null;
+	}
+
+	/**
+	 * record that this solution was made from another by changing only the given decision variables, so objectives
+	 * that are {@link DeltaObjectiveFunction}s can be evaluated from the other solution's fitness.
+	 * call after the decision variables have been set, the move is forgotten if a decision variable changes again
+	 *
+	 * @param origin           the solution this one was moved from
+	 * @param changedVariables the indices of the decision variables that differ from the origin
+	 */
+	public void setMove(CandidateSolution origin, int[] changedVariables) {
+		this.moveOrigin = origin;
+		this.moveChangedVariables = changedVariables;
 	}
 
 	/**
-	 * our constructor, take an arraylist of Doubles and wraps it to create com.parker.david.CandidateSolution
+	 * get a copy of all decision variables at once
 	 *
-	 * @param decisionVariables an arraylist of Doubles correlating to the decision variables
+	 * @return a new array holding the decision variables, changing it does not affect this solution
 	 */
-	CandidateSolution(ArrayList<Double> decisionVariables, int solutionId, CandidateSolutionFactory factoryRef) {
+	public double[] getDecisionVariables() {
+		return decisionVariables.clone();
+	}
+
+	/**
+	 * our constructor, take an array of doubles and wraps it to create com.parker.david.CandidateSolution.
+	 * the array is not copied, the factory hands over an array that nothing else references
+	 *
+	 * @param decisionVariables an array of doubles correlating to the decision variables
+	 */
+	CandidateSolution(double[] decisionVariables, int solutionId, CandidateSolutionFactory factoryRef) {
 		this.decisionVariables = decisionVariables;
 		this.solutionId = solutionId;
 		this.factory = factoryRef;
 	}
 
+	/**
+	 * a bare view of some decision variables, belonging to no factory. only for handing a row of a batch to an
+	 * objective function that evaluates one solution at a time
+	 *
+	 * @param decisionVariables the decision variables, not copied
+	 */
+	CandidateSolution(double[] decisionVariables) {
+		this(decisionVariables, -1, null);
+	}
+
 	/**
 	 * our deep copy method. Creates a brand new CandidateSolution that is a copy of this CandidateSolution.
 	 * Changing data in one object does not affect data in the other object.
@@ -77,13 +179,44 @@ public class CandidateSolution implements Comparable<CandidateSolution> {
 	 * @return a new solution that is a copy of the current one
 	 */
 	public CandidateSolution copy() {
-		ArrayList<Double> copyOfDecisionVariables = new ArrayList<>();
-		for (Double decisionVariable : decisionVariables) {
-			copyOfDecisionVariables.add(decisionVariable);
+		//get a new solution (and all the things that come with making it from the factory), the factory copies the array
+		return factory.getCandidateSolution(decisionVariables);
+	}
+
+	/**
+	 * make this solution the same as {@link #copy()} of the source would be, rounded the same way, but write the
+	 * decision variables into this solution's own array instead of creating a new solution.
+	 * both solutions must have the same number of decision variables
+	 *
+	 * @param source the solution to copy the decision variables of
+	 */
+	public void copyFrom(CandidateSolution source) {
+		for (int i = 0; i < decisionVariables.length; i++) {
+			setIthDecisionVariable(i, factory.round(source.decisionVariables[i]));
 		}
+	}
 
-		//get a new solution (and all the things that come with making it from the factory)
-		return factory.getCandidateSolution(copyOfDecisionVariables);
+	/**
+	 * a copy to use as a proposal buffer, which the search writes proposals into one after another with
+	 * {@link #copyFrom} and {@link #setIthDecisionVariable}, and which evaluates each into the same fitness array.
+	 * the search must stop reusing the buffer, see {@link #stopReusing()}, before anything else keeps hold of it, such
+	 * as when it is accepted or archived
+	 *
+	 * @return a new solution to reuse as a proposal buffer
+	 */
+	CandidateSolution reusableCopy() {
+		CandidateSolution buffer = copy();
+		buffer.reusable = true;
+		return buffer;
+	}
+
+	/**
+	 * stop reusing a proposal buffer, its decision variables and fitnesses are from then on left alone, so it can be
+	 * kept like any other solution
+	 */
+	void stopReusing() {
+		reusable = false;
+		spareFitnesses = null;
 	}
 
 	/**
@@ -102,7 +235,7 @@ public class CandidateSolution implements Comparable<CandidateSolution> {
 	 */
 	public void decisionVariablesToFile(FileWriter f) {
 		try {
-			f.append(decisionVariables.stream().map(variable -> String.format("%.6f", variable)).collect(Collectors.joining(", "))).append("\n");
+			f.append(Arrays.stream(decisionVariables).mapToObj(variable -> String.format("%.6f", variable)).collect(Collectors.joining(", "))).append("\n");
 		} catch (IOException ignored) {
 			System.out.println("data not written");
 		}
@@ -116,7 +249,7 @@ public class CandidateSolution implements Comparable<CandidateSolution> {
 	 */
 	@Override
 	public String toString() {
-		return "decision variables: [" + decisionVariables.stream().map(aDouble -> String.format("%.6f", aDouble)).collect(Collectors.joining(", ")) +
+		return "decision variables: [" + Arrays.stream(decisionVariables).mapToObj(aDouble -> String.format("%.6f", aDouble)).collect(Collectors.joining(", ")) +
 				"], fitnesses: [" + getFitnesses().stream().map(aDouble -> String.format("%.6f", aDouble)).collect(Collectors.joining(", ")) + "]";
 	}
 
@@ -130,45 +263,117 @@ public class CandidateSolution implements Comparable<CandidateSolution> {
 		return (compareTo(otherSolution) == 1);
 	}
 
+	/**
+	 * true if this solution dominates a vector of fitnesses, such as a predicted one, without wrapping it in a solution
+	 *
+	 * @param fitnesses the fitness for each objective, in the order the objectives were added
+	 * @return boolean, true if this dominates the fitnesses
+	 */
+	public boolean dominates(double[] fitnesses) {
+		return factory.objectives.compare(getFitnessValues(), fitnesses) == 1;
+	}
+
 	/**
 	 * calculate if this solution dominates another solution, 1 if dominates, 0 if not, -1 if dominated
 	 */
 	@Override
 	public int compareTo(CandidateSolution other) {
-
-		//positive delta indicates that for this objective function, >this< is better than >other<
-
-		boolean positiveDeltaExists = false;
-		boolean negativeDeltaExists = false;
-		for (double fitnessDelta : factory.objectives.fitnessDeltasRelatedToMinMax(this, other)) {
-			if (fitnessDelta > 0) positiveDeltaExists = true;
-			if (fitnessDelta < 0) negativeDeltaExists = true;
-		}
-
-		if (positiveDeltaExists && !negativeDeltaExists)
-			return 1; //this dominates other -> fitness deltas are all positive, and at least one is non-zero
-		else if (!positiveDeltaExists && negativeDeltaExists)
-			return -1; //other dominates this -> fitness deltas are all negative, and at least one is non-zero
-		else
-			return 0; //neither dominates -> fitness deltas are a mix of positive and negative or deltas all are zero
+		//the objective set knows whether each objective is minimised or maximised
+		return factory.objectives.compare(getFitnessValues(), other.getFitnessValues());
 	}
 
 	/**
 	 * if the decision variables are equal the solutions are equal
 	 */
 	public boolean isEqual(CandidateSolution other) {
+		//different hashes mean different decision variables
+		if (this.decisionVariableHash() != other.decisionVariableHash())
+			return false;
+
 		//check each decision variable, if they are not equal return false
-		for (int i = 0; i < decisionVariables.size(); i++) {
-			if (this.decisionVariables.get(i).doubleValue() != other.decisionVariables.get(i).doubleValue())
+		for (int i = 0; i < decisionVariables.length; i++) {
+			if (this.decisionVariables[i] != other.decisionVariables[i])
 				return false;
 		}
 		return true;
 	}
 
+	/**
+	 * a hash of the decision variables, consistent with isEqual. each variable is scaled by the rounding factor and
+	 * rounded to a whole number, so rounded decision variables are hashed exactly. the hash is cached on the solution
+	 *
+	 * @return the hash of the decision variables
+	 */
+	public int decisionVariableHash() {
+		int hash = decisionVariableHash;
+		if (hash == 0) {
+			hash = 1;
+			for (double decisionVariable : decisionVariables) {
+				hash = 31 * hash + Long.hashCode(Math.round(decisionVariable * factory.roundingFactor));
+			}
+			decisionVariableHash = hash;
+		}
+		return hash;
+	}
+
 	/**
 	 * getter for fitness set of this solution
 	 */
 	public ArrayList<Double> getFitnesses() {
-		return factory.objectives.getFitnesses(this);
+		ArrayList<Double> boxedFitnesses = new ArrayList<>();
+		for (double fitness : getFitnessValues()) {
+			boxedFitnesses.add(fitness);
+		}
+		return boxedFitnesses;
+	}
+
+	/**
+	 * whether the objective values of this solution have been evaluated yet
+	 */
+	public boolean isEvaluated() {
+		return fitnesses != null;
+	}
+
+	/**
+	 * set the objective values of this solution, when they have been evaluated as part of a batch
+	 *
+	 * @param fitnesses the fitness for each objective, in the order the objectives were added
+	 */
+	void setFitnessValues(double[] fitnesses) {
+		this.fitnesses = fitnesses;
+		movesSinceFullEvaluation = 0;
+		moveOrigin = null;
+		moveChangedVariables = null;
+	}
+
+	/**
+	 * getter for the cached fitness values of this solution. objectives are evaluated the first time this is called,
+	 * after that the same array is returned, so callers must not modify it
+	 *
+	 * @return the fitness of this solution for each objective, in the order the objectives were added
+	 */
+	public double[] getFitnessValues() {
+		double[] evaluated = fitnesses;
+		if (evaluated == null) {
+			CandidateSolution origin = moveOrigin;
+			int[] changedVariables = moveChangedVariables;
+			int carriedMoves = ObjectiveSet.movesBetweenFullEvaluations;
+			if (origin != null && changedVariables != null) {
+				//the origin is evaluated first, so its count of carried moves is known
+				origin.getFitnessValues();
+				carriedMoves = origin.movesSinceFullEvaluation + 1;
+			}
+			if (carriedMoves < ObjectiveSet.movesBetweenFullEvaluations) {
+				evaluated = factory.objectives.evaluateMove(origin, this, changedVariables, (spareFitnesses != null) ? spareFitnesses : new double[factory.objectives.size()]);
+				movesSinceFullEvaluation = carriedMoves;
+			} else {
+				evaluated = (spareFitnesses != null) ? factory.objectives.evaluate(this, spareFitnesses) : factory.objectives.evaluate(this);
+				movesSinceFullEvaluation = 0;
+			}
+			fitnesses = evaluated;
+			moveOrigin = null;
+			moveChangedVariables = null;
+		}
+		return evaluated;
 	}
 }
\ No newline at end of file
@@ -1,6 +1,7 @@
 package com.parker.david;
 
 import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * a factory for generating new candidate solutions, keeps track of the objective functions and the id of the solution
@@ -12,10 +13,15 @@ public class CandidateSolutionFactory {
 	 */
 	int doubleDecimalRoundOff;
 
+	/**
+	 * 10 to the power of doubleDecimalRoundOff, multiplying a rounded double by this gives a whole number
+	 */
+	final double roundingFactor;
+
 	/**
 	 * a counter for the solution's ID. designed for easier comparison of solutions, never actually used for anything useful
 	 */
-	private int solutionCounter = 0;
+	private final AtomicInteger solutionCounter = new AtomicInteger();
 
 	/**
 	 * a set of objectives that we wish to satisfy
@@ -28,19 +34,41 @@ public class CandidateSolutionFactory {
 	 * @param decisionVariables the set of decision variables that define this candidate solution
 	 */
 	public CandidateSolution getCandidateSolution(ArrayList<Double> decisionVariables) {
-		ArrayList<Double> rounded = new ArrayList<>();
-		for (Double decisionVariable : decisionVariables) {
-			rounded.add(round(decisionVariable));
+		double[] unboxed = new double[decisionVariables.size()];
+		for (int i = 0; i < unboxed.length; i++) {
+			unboxed[i] = decisionVariables.get(i);
 		}
-		return new CandidateSolution(rounded, solutionCounter++, this);
+		return getCandidateSolution(unboxed);
+	}
+
+	/**
+	 * a function to get a new candidate solution given a set of decision variables as a primitive array.
+	 * the values are rounded into a new array, so the caller may keep using the array it passed in
+	 *
+	 * @param decisionVariables the set of decision variables that define this candidate solution
+	 */
+	public CandidateSolution getCandidateSolution(double[] decisionVariables) {
+		double[] rounded = new double[decisionVariables.length];
+		for (int i = 0; i < rounded.length; i++) {
+			rounded[i] = round(decisionVariables[i]);
+		}
+		return new CandidateSolution(rounded, solutionCounter.getAndIncrement(), this);
+	}
+
+	/**
+	 * the number of solutions this factory has created, to compare against the objective evaluation count
+	 *
+	 * @return the number of solutions created
+	 */
+	public int getSolutionsCreated() {
+		return solutionCounter.get();
 	}
 
 	/**
 	 * rounds a number based on the defined decimal roundoff
 	 */
-	private double round(double number) {
-		double factor = Math.pow(10, doubleDecimalRoundOff);
-		return Math.round(number * factor) / factor;
+	double round(double number) {
+		return Math.round(number * roundingFactor) / roundingFactor;
 	}
 
 	/**
@@ -53,6 +81,7 @@ public class CandidateSolutionFactory {
 	CandidateSolutionFactory(ObjectiveSet objectives, int doubleDecimalRoundOff) {
 		this.objectives = objectives;
 		this.doubleDecimalRoundOff = doubleDecimalRoundOff;
+		this.roundingFactor = Math.pow(10, doubleDecimalRoundOff);
 	}
 
 }
@@ -0,0 +1,349 @@
+package com.parker.david;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * a constraint set compiled for fast feasibility checks, see {@link ConstraintSet#compile()}. it is not a
+ * {@link ConstraintSet} and can't be added to, it holds only the compiled form of the constraints it was made from.
+ * every linear constraint is normalised to weights . x &lt;= threshold (or &lt; threshold), negating the weights and
+ * threshold of a &gt;= or &gt; constraint, and stored as a row of a weight matrix. the non-strict rows come first and the
+ * strict rows after, so each group is checked in its own loop with no operator to branch on, stopping at the first
+ * violated row. constraints that aren't linear are checked after the matrix, one by one.
+ * <p>
+ * for moves that change only a few decision variables, the set also indexes, for each variable, the rows that
+ * reference it, so only those rows of a neighbour are checked, their weighted sums updated from those of the original
+ * solution, see {@link #isFeasibleAfterMove}
+ */
+public class CompiledConstraintSet implements FeasibilityCheck {
+
+	/**
+	 * the weights of each linear constraint, one row per constraint
+	 */
+	private final double[][] weights;
+
+	/**
+	 * the threshold of each row
+	 */
+	private final double[] thresholds;
+
+	/**
+	 * the index of the first strict row, rows before it are &lt;= and rows from it are &lt;
+	 */
+	private final int firstStrictRow;
+
+	/**
+	 * the constraints that aren't linear
+	 */
+	private final Constraint[] functionConstraints;
+
+	/**
+	 * for each decision variable, the rows with a non-zero weight on it and those weights
+	 */
+	private final int[][] rowsOfVariable;
+	private final double[][] weightsOfVariable;
+
+	/**
+	 * a weighted sum updated by a move is checked again from scratch if it lands this close to its threshold,
+	 * relative to the size of the threshold, so updating the sums never changes whether a solution is feasible
+	 */
+	private static final double updatedSumTolerance = 1e-9;
+
+	/**
+	 * constructor, see {@link ConstraintSet#compile()}
+	 *
+	 * @param constraints the constraints to compile
+	 */
+	CompiledConstraintSet(List<Constraint> constraints) {
+		List<double[]> rows = new ArrayList<>();
+		List<Double> rowThresholds = new ArrayList<>();
+		List<double[]> strictRows = new ArrayList<>();
+		List<Double> strictThresholds = new ArrayList<>();
+		List<Constraint> others = new ArrayList<>();
+
+		for (Constraint constraint : constraints) {
+			if (!constraint.isLinear()) {
+				others.add(constraint);
+				continue;
+			}
+			double[] row = constraint.weights();
+			double threshold = constraint.getValueThreshold();
+			Constraint.Operators operator = constraint.getOperator();
+
+			// negating both sides turns a lower bound into an upper bound, exactly, since negation doesn't round
+			if (operator == Constraint.Operators.GREATER_THAN || operator == Constraint.Operators.GREATER_THAN_OR_EQUAL) {
+				for (int i = 0; i < row.length; i++) {
+					row[i] = -row[i];
+				}
+				threshold = -threshold;
+			}
+			if (operator == Constraint.Operators.LESS_THAN || operator == Constraint.Operators.GREATER_THAN) {
+				strictRows.add(row);
+				strictThresholds.add(threshold);
+			} else {
+				rows.add(row);
+				rowThresholds.add(threshold);
+			}
+		}
+
+		firstStrictRow = rows.size();
+		rows.addAll(strictRows);
+		rowThresholds.addAll(strictThresholds);
+		weights = rows.toArray(new double[0][]);
+		thresholds = new double[rowThresholds.size()];
+		for (int i = 0; i < thresholds.length; i++) {
+			thresholds[i] = rowThresholds.get(i);
+		}
+		functionConstraints = others.toArray(new Constraint[0]);
+
+		int variableCount = 0;
+		for (double[] row : weights) {
+			variableCount = Math.max(variableCount, row.length);
+		}
+		int[] rowCounts = new int[variableCount];
+		for (double[] row : weights) {
+			for (int i = 0; i < row.length; i++) {
+				if (row[i] != 0)
+					rowCounts[i]++;
+			}
+		}
+		rowsOfVariable = new int[variableCount][];
+		weightsOfVariable = new double[variableCount][];
+		for (int i = 0; i < variableCount; i++) {
+			rowsOfVariable[i] = new int[rowCounts[i]];
+			weightsOfVariable[i] = new double[rowCounts[i]];
+			rowCounts[i] = 0;
+		}
+		for (int row = 0; row < weights.length; row++) {
+			for (int i = 0; i < weights[row].length; i++) {
+				if (weights[row][i] != 0) {
+					rowsOfVariable[i][rowCounts[i]] = row;
+					weightsOfVariable[i][rowCounts[i]] = weights[row][i];
+					rowCounts[i]++;
+				}
+			}
+		}
+	}
+
+	/**
+	 * check the rows of the matrix, then the constraints that aren't linear, returning false at the first violation
+	 *
+	 * @param solution this is the solution that we want to check feasibility for
+	 * @return a boolean, if true solution is feasible, if false, solution is unfeasible
+	 */
+	@Override
+	public boolean isFeasible(CandidateSolution solution) {
+		final double[] x = solution.decisionVariableArray();
+
+		// written as !(a <= b) so a NaN weighted sum is infeasible, as it is for the uncompiled constraint
+		for (int row = 0; row < firstStrictRow; row++) {
+			if (!(weightedSum(weights[row], x) <= thresholds[row]))
+				return false;
+		}
+		for (int row = firstStrictRow; row < weights.length; row++) {
+			if (!(weightedSum(weights[row], x) < thresholds[row]))
+				return false;
+		}
+		for (Constraint constraint : functionConstraints) {
+			if (!constraint.isFeasible(solution))
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * the weighted sum of every row for a solution, to be kept alongside the solution and updated by
+	 * {@link #isFeasibleAfterMove}
+	 *
+	 * @param solution the solution
+	 * @return the weighted sum of each row
+	 */
+	public double[] weightedSums(CandidateSolution solution) {
+		return weightedSums(solution, new double[weights.length]);
+	}
+
+	/**
+	 * the weighted sum of every row for a solution as above, written into the given array
+	 *
+	 * @param solution the solution
+	 * @param sums     filled with the weighted sum of each row, one entry per row
+	 * @return sums
+	 */
+	public double[] weightedSums(CandidateSolution solution, double[] sums) {
+		final double[] x = solution.decisionVariableArray();
+		for (int row = 0; row < weights.length; row++) {
+			sums[row] = weightedSum(weights[row], x);
+		}
+		return sums;
+	}
+
+	/**
+	 * scratch space for {@link #isFeasibleAfterMove}, owned by one caller and reused for every move it checks, so a check
+	 * allocates nothing
+	 */
+	public static final class MoveCheck {
+
+		/**
+		 * the updated weighted sum of each row the move touched, other entries are stale
+		 */
+		private final double[] movedSums;
+
+		/**
+		 * the rows the move touched, and for each row the check that last touched it
+		 */
+		private final int[] touchedRows;
+		private final int[] rowMarks;
+		private int mark = 0;
+
+		private MoveCheck(int rows) {
+			movedSums = new double[rows];
+			touchedRows = new int[rows];
+			rowMarks = new int[rows];
+		}
+	}
+
+	/**
+	 * new scratch space for checking moves against this set
+	 */
+	public MoveCheck newMoveCheck() {
+		return new MoveCheck(weights.length);
+	}
+
+	/**
+	 * check the feasibility of a solution that differs from a feasible original solution in only a few decision
+	 * variables. only the rows the changed variables appear in are checked, the others hold the same sum as for the
+	 * original, which satisfied them. their weighted sums are updated from those of the original through the index of
+	 * the rows each changed variable appears in, so the cost depends on the number of rows the changed variables appear
+	 * in rather than on the whole matrix or the number of variables. a row whose updated sum is very near its threshold
+	 * is summed again from scratch, so the rounding of the updates doesn't change the result compared to
+	 * {@link #isFeasible(CandidateSolution)}. constraints that aren't linear are checked in full
+	 *
+	 * @param moved            the solution after the move
+	 * @param originalSums     the weighted sums of the original solution, see {@link #weightedSums}, not modified
+	 * @param changedVariables the indices of the variables the move changed
+	 * @param deltas           the change in each of those variables, moved value minus original value
+	 * @param changedCount     the number of entries of changedVariables and deltas in use
+	 * @param check            scratch space from {@link #newMoveCheck()}, not shared with another thread during the call
+	 * @return true if the moved solution is feasible
+	 */
+	public boolean isFeasibleAfterMove(CandidateSolution moved, double[] originalSums, int[] changedVariables, double[] deltas, int changedCount, MoveCheck check) {
+		final double[] movedSums = check.movedSums;
+		final int[] touchedRows = check.touchedRows;
+		final int[] rowMarks = check.rowMarks;
+		if (++check.mark == Integer.MAX_VALUE) {
+			Arrays.fill(rowMarks, 0);
+			check.mark = 1;
+		}
+		final int mark = check.mark;
+		int touchedCount = 0;
+
+		for (int c = 0; c < changedCount; c++) {
+			int variable = changedVariables[c];
+			if (variable >= rowsOfVariable.length)
+				continue;
+			final int[] rows = rowsOfVariable[variable];
+			final double[] rowWeights = weightsOfVariable[variable];
+			final double delta = deltas[c];
+			for (int i = 0; i < rows.length; i++) {
+				int row = rows[i];
+				if (rowMarks[row] != mark) {
+					rowMarks[row] = mark;
+					movedSums[row] = originalSums[row];
+					touchedRows[touchedCount++] = row;
+				}
+				movedSums[row] += rowWeights[i] * delta;
+			}
+		}
+
+		final double[] x = moved.decisionVariableArray();
+		for (int t = 0; t < touchedCount; t++) {
+			int row = touchedRows[t];
+			double gap = thresholds[row] - movedSums[row];
+			if (Math.abs(gap) <= updatedSumTolerance * (1 + Math.abs(thresholds[row])))
+				movedSums[row] = weightedSum(weights[row], x);
+			boolean satisfied = (row < firstStrictRow) ? movedSums[row] <= thresholds[row] : movedSums[row] < thresholds[row];
+			if (!satisfied)
+				return false;
+		}
+		for (Constraint constraint : functionConstraints) {
+			if (!constraint.isFeasible(moved))
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * update the weighted sums of a solution for a move, in place, adding the same terms in the same order as
+	 * {@link #isFeasibleAfterMove} does, so the sums follow an accepted move without summing the matrix again
+	 *
+	 * @param sums             the weighted sums before the move, updated to those after it
+	 * @param changedVariables the indices of the variables the move changed
+	 * @param deltas           the change in each of those variables
+	 * @param changedCount     the number of entries of changedVariables and deltas in use
+	 */
+	public void applyMove(double[] sums, int[] changedVariables, double[] deltas, int changedCount) {
+		for (int c = 0; c < changedCount; c++) {
+			int variable = changedVariables[c];
+			if (variable >= rowsOfVariable.length)
+				continue;
+			final int[] rows = rowsOfVariable[variable];
+			final double[] rowWeights = weightsOfVariable[variable];
+			final double delta = deltas[c];
+			for (int i = 0; i < rows.length; i++) {
+				sums[rows[i]] += rowWeights[i] * delta;
+			}
+		}
+	}
+
+	/**
+	 * the interval of steps t for which solution + t * direction satisfies every linear constraint, within
+	 * [-maxStep, maxStep]. each row bounds t from one side, depending on the sign of its weighted sum over the
+	 * direction. constraints that aren't linear are not considered
+	 *
+	 * @param solution  the solution the step starts from
+	 * @param direction the direction of the step, one entry per decision variable
+	 * @param maxStep   the largest step allowed in either direction
+	 * @param interval  filled with the lowest and highest feasible step, both 0 if no step satisfies every row
+	 */
+	public void feasibleStepInterval(CandidateSolution solution, double[] direction, double maxStep, double[] interval) {
+		final double[] x = solution.decisionVariableArray();
+		double lowest = -maxStep;
+		double highest = maxStep;
+		for (int row = 0; row < weights.length; row++) {
+			double rate = weightedSum(weights[row], direction);
+			if (rate == 0)
+				continue;
+			double bound = (thresholds[row] - weightedSum(weights[row], x)) / rate;
+			if (rate > 0)
+				highest = Math.min(highest, bound);
+			else
+				lowest = Math.max(lowest, bound);
+		}
+		// also catches a NaN bound
+		if (!(lowest <= highest)) {
+			lowest = 0;
+			highest = 0;
+		}
+		interval[0] = lowest;
+		interval[1] = highest;
+	}
+
+	/**
+	 * the sum of weight * value over a row, in the same order as {@link Constraint#isFeasible(CandidateSolution)}
+	 */
+	private static double weightedSum(double[] row, double[] x) {
+		double sum = 0;
+		for (int i = 0; i < row.length; i++) {
+			sum += row[i] * x[i];
+		}
+		return sum;
+	}
+
+	/**
+	 * the number of linear constraints held in the matrix
+	 */
+	public int getLinearConstraintCount() {
+		return weights.length;
+	}
+}
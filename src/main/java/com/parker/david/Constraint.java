@@ -1,17 +1,24 @@
 package com.parker.david;
 
 import java.util.ArrayList;
+import java.util.function.ToDoubleFunction;
 
 /**
  * this class represents a single constraint. It is of the form [list of weights] [operator] [value] eg: (-1 * X1) + (3 * X2) <= 7
+ * or, for a constraint that isn't linear, [function of the decision variables] [operator] [value].
  * it has a method to initialise it, and a method to check if the constraint is satisfied for a candidate solution
  */
 public class Constraint {
 
 	/**
-	 * an array list that contains the weights(if any) correlating to the various constraints
+	 * the weights(if any) correlating to the various constraints, null for a constraint given by a function
 	 */
-	private final ArrayList<Integer> constraintFunctionEncoded;
+	private final double[] constraintFunctionEncoded;
+
+	/**
+	 * the function of the decision variables compared against the threshold, null for a linear constraint given by weights
+	 */
+	private final ToDoubleFunction<double[]> constraintFunction;
 
 	/**
 	 * an operator enum, this defines the comparison method used for evaluating feasibility
@@ -44,7 +51,41 @@ public class Constraint {
 	 * @param valueThreshold            this is the value threshold that the operator applies to
 	 */
 	Constraint(ArrayList<Integer> constraintFunctionEncoded, Operators operator, double valueThreshold) {
-		this.constraintFunctionEncoded = constraintFunctionEncoded;
+		this(unbox(constraintFunctionEncoded), operator, valueThreshold);
+	}
+
+	/**
+	 * constructor for a linear constraint with weights that need not be whole numbers
+	 *
+	 * @param weights        the weight of each decision variable, copied
+	 * @param operator       this is the operator to be used
+	 * @param valueThreshold this is the value threshold that the operator applies to
+	 */
+	Constraint(double[] weights, Operators operator, double valueThreshold) {
+		this.constraintFunctionEncoded = weights.clone();
+		this.constraintFunction = null;
+		this.operator = operator;
+		this.valueThreshold = valueThreshold;
+	}
+
+	private static double[] unbox(ArrayList<Integer> weights) {
+		double[] unboxed = new double[weights.size()];
+		for (int i = 0; i < unboxed.length; i++) {
+			unboxed[i] = weights.get(i);
+		}
+		return unboxed;
+	}
+
+	/**
+	 * constructor for a constraint on any function of the decision variables
+	 *
+	 * @param constraintFunction the function of the decision variables that the operator applies to
+	 * @param operator           this is the operator to be used
+	 * @param valueThreshold     this is the value threshold that the operator applies to
+	 */
+	Constraint(ToDoubleFunction<double[]> constraintFunction, Operators operator, double valueThreshold) {
+		this.constraintFunctionEncoded = null;
+		this.constraintFunction = constraintFunction;
 		this.operator = operator;
 		this.valueThreshold = valueThreshold;
 	}
@@ -56,14 +97,47 @@ public class Constraint {
 	 * @return a boolean indicating if this particular constraint is satisfied
 	 */
 	public boolean isFeasible(CandidateSolution solution) {
-		//set an initial value
-		int solutionConstraintValue = 0;
+		if (constraintFunction != null)
+			return satisfies(constraintFunction.applyAsDouble(solution.decisionVariableArray()));
+
+		//set an initial value, a double so fractional weighted values aren't truncated
+		double solutionConstraintValue = 0;
 
 		//add up all the (weight*value)s that are used by the candidate solution
-		for (int i = 0; i < constraintFunctionEncoded.size(); i++) {
-			solutionConstraintValue += constraintFunctionEncoded.get(i) * solution.getIthDecisionVariable(i);
+		for (int i = 0; i < constraintFunctionEncoded.length; i++) {
+			solutionConstraintValue += constraintFunctionEncoded[i] * solution.getIthDecisionVariable(i);
 		}
 
+		return satisfies(solutionConstraintValue);
+	}
+
+	/**
+	 * whether this is a linear constraint given by weights, which a {@link CompiledConstraintSet} can hold as a row of
+	 * its matrix
+	 */
+	boolean isLinear() {
+		return constraintFunction == null;
+	}
+
+	/**
+	 * a copy of the weights of a linear constraint
+	 */
+	double[] weights() {
+		return constraintFunctionEncoded.clone();
+	}
+
+	Operators getOperator() {
+		return operator;
+	}
+
+	double getValueThreshold() {
+		return valueThreshold;
+	}
+
+	/**
+	 * whether a value of the constraint function satisfies the operator and threshold
+	 */
+	private boolean satisfies(double solutionConstraintValue) {
 		//handle the various possible operators
 		if (operator == Operators.LESS_THAN)
 			return solutionConstraintValue < valueThreshold;
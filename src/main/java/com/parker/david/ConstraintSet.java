@@ -5,7 +5,7 @@ import java.util.ArrayList;
 /**
  * a holder for all constraints so it is simpler to check if all constraints are feasible at once
  */
-public class ConstraintSet {
+public class ConstraintSet implements FeasibilityCheck {
 
 	/**
 	 * this is an array of the constraints that we want to check
@@ -37,6 +37,7 @@ public class ConstraintSet {
 	 * @param solution this is the solution that we want to check feasibility for
 	 * @return a boolean, if true solution is feasible, if false, solution is unfeasible
 	 */
+	@Override
 	public boolean isFeasible(CandidateSolution solution) {
 		for (Constraint constraint : constraintSet) {
 			if (!constraint.isFeasible(solution))
@@ -44,4 +45,14 @@ public class ConstraintSet {
 		}
 		return true;
 	}
+
+	/**
+	 * compile the constraints into a {@link CompiledConstraintSet}, which checks all linear constraints together in one
+	 * loop over a weight matrix. constraints added to this set afterwards are not seen by the compiled set
+	 *
+	 * @return the compiled constraints
+	 */
+	public CompiledConstraintSet compile() {
+		return new CompiledConstraintSet(constraintSet);
+	}
 }
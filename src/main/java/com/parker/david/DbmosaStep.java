@@ -0,0 +1,134 @@
+package com.parker.david;
+
+import com.parker.david.Neighbourhood.SolutionFromNeighbourhoodGenerator;
+import com.parker.david.acceptance.AcceptanceCriterion;
+import com.parker.david.archive.SolutionArchive;
+import com.parker.david.epoch.EpochController;
+import com.parker.david.temperature.TemperatureController;
+
+/**
+ * one iteration of the DBMOSA loop, shared by every search built on it so they all move the same way. a move is
+ * proposed from the current solution, the acceptance criterion decides on it, an accepted move that no archived
+ * solution dominates is offered to the archive, and at the end of an epoch the temperature is lowered after an
+ * acceptance or raised after a rejection.
+ * <p>
+ * proposals are written into a buffer and evaluated there, so a rejected move allocates nothing. the buffer is never
+ * the current solution or archived, an accepted proposal is kept and a new buffer is taken for the next move
+ */
+public class DbmosaStep {
+
+	/**
+	 * the components of the search, none of them may be shared with another search
+	 */
+	private final SearchMetaInfo searchMeta;
+	private final TemperatureController tempControl;
+	private final SolutionFromNeighbourhoodGenerator neighbourhoodGenerator;
+	private final EpochController epochEnd;
+	private final SolutionArchive archive;
+	private final AcceptanceCriterion acceptance;
+
+	/**
+	 * the current solution of the search
+	 */
+	private CandidateSolution solution;
+
+	/**
+	 * the buffer proposals are written into, created on the first proposal
+	 */
+	private CandidateSolution proposal = null;
+
+	/**
+	 * whether the last move decided on was accepted
+	 */
+	private boolean lastAccepted = false;
+
+	/**
+	 * constructor
+	 *
+	 * @param searchMeta             the progress information of the search, holds its temperature
+	 * @param tempControl            the temperature schedule, null to hold the temperature fixed
+	 * @param initialSolution        the solution the search starts from
+	 * @param neighbourhoodGenerator the next solution generation method
+	 * @param epochEnd               decides when a new epoch starts
+	 * @param archive                the archive accepted solutions are offered to
+	 * @param acceptance             the acceptance criterion
+	 */
+	public DbmosaStep(SearchMetaInfo searchMeta, TemperatureController tempControl, CandidateSolution initialSolution, SolutionFromNeighbourhoodGenerator neighbourhoodGenerator, EpochController epochEnd, SolutionArchive archive, AcceptanceCriterion acceptance) {
+		this.searchMeta = searchMeta;
+		this.tempControl = tempControl;
+		this.solution = initialSolution;
+		this.neighbourhoodGenerator = neighbourhoodGenerator;
+		this.epochEnd = epochEnd;
+		this.archive = archive;
+		this.acceptance = acceptance;
+	}
+
+	/**
+	 * propose a move from the current solution into the buffer and decide on it, see {@link #decide}
+	 *
+	 * @return true if the move ended an epoch
+	 */
+	public boolean step() {
+		if (proposal == null)
+			proposal = solution.reusableCopy();
+		return decide(neighbourhoodGenerator.neighbourhoodSolution(solution, proposal));
+	}
+
+	/**
+	 * decide on a move made from the current solution by other means, such as ahead of time.
+	 * if accepted it becomes the current solution and, unless dominated, is offered to the archive. the move is
+	 * counted, and if it ends an epoch the temperature is lowered after an acceptance or raised after a rejection
+	 *
+	 * @param newSolution the proposed solution, made from the current solution
+	 * @return true if the move ended an epoch
+	 */
+	public boolean decide(CandidateSolution newSolution) {
+		lastAccepted = acceptance.isAccepted(archive, solution, newSolution, searchMeta.getTemperature());
+		if (lastAccepted) {
+			// an accepted proposal is kept, so the search moves on to a new buffer before it could be archived
+			if (newSolution == proposal) {
+				proposal.stopReusing();
+				proposal = null;
+			}
+			// a dominated solution can't enter the archive, so only try to insert non-dominated ones
+			searchMeta.solutionAcceptance(!acceptance.newSolutionDominated() && archive.addIfNotDominated(newSolution));
+			solution = newSolution;
+		} else {
+			searchMeta.solutionRejection();
+		}
+
+		if (!epochEnd.newEpochTriggered(searchMeta))
+			return false;
+		searchMeta.newEpoch();
+		if (tempControl != null) {
+			if (lastAccepted)
+				tempControl.cool(searchMeta);
+			else
+				tempControl.heat(searchMeta);
+		}
+		return true;
+	}
+
+	/**
+	 * whether the last move decided on was accepted
+	 */
+	public boolean lastAccepted() {
+		return lastAccepted;
+	}
+
+	/**
+	 * the current solution of the search
+	 */
+	public CandidateSolution getSolution() {
+		return solution;
+	}
+
+	/**
+	 * move the search to another solution, such as a migrant or a swapped replica
+	 *
+	 * @param solution the new current solution, must not be a proposal buffer
+	 */
+	public void setSolution(CandidateSolution solution) {
+		this.solution = solution;
+	}
+}
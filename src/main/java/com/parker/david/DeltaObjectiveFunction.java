@@ -0,0 +1,52 @@
+package com.parker.david;
+
+import java.util.function.DoubleUnaryOperator;
+
+/**
+ * an objective function that can work out the fitness of a solution from the fitness of a solution it was moved from,
+ * looking only at the decision variables the move changed. when a neighbourhood generator records the move that made
+ * a solution, see {@link CandidateSolution#setMove(CandidateSolution, int[])}, the objective set uses this instead of
+ * a full evaluation. the result may differ from a full evaluation by rounding
+ */
+public interface DeltaObjectiveFunction extends PrimitiveObjectiveFunction {
+
+	/**
+	 * the fitness of a solution after a move
+	 *
+	 * @param original         the decision variables before the move, must not be modified
+	 * @param originalFitness  the fitness before the move
+	 * @param moved            the decision variables after the move, must not be modified
+	 * @param changedVariables the indices of the decision variables the move changed
+	 * @return the fitness after the move
+	 */
+	double getFitnessAfterMove(double[] original, double originalFitness, double[] moved, int[] changedVariables);
+
+	/**
+	 * a separable objective, the sum of the same function of each decision variable, eg sum of xi^2.
+	 * a move only needs the terms of the changed variables
+	 *
+	 * @param term the function of a single decision variable
+	 * @return the objective
+	 */
+	static DeltaObjectiveFunction separable(DoubleUnaryOperator term) {
+		return new DeltaObjectiveFunction() {
+			@Override
+			public double getFitness(double[] decisionVariables) {
+				double sum = 0;
+				for (double decisionVariable : decisionVariables) {
+					sum += term.applyAsDouble(decisionVariable);
+				}
+				return sum;
+			}
+
+			@Override
+			public double getFitnessAfterMove(double[] original, double originalFitness, double[] moved, int[] changedVariables) {
+				double fitness = originalFitness;
+				for (int i : changedVariables) {
+					fitness += term.applyAsDouble(moved[i]) - term.applyAsDouble(original[i]);
+				}
+				return fitness;
+			}
+		};
+	}
+}
@@ -0,0 +1,108 @@
+package com.parker.david;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.SplittableRandom;
+
+/**
+ * a benchmark of the dominance comparison, {@link CandidateSolution#compareTo} through {@link ObjectiveSet#compare},
+ * against the comparison it replaced, which checked the signs of {@link ObjectiveSet#fitnessDeltasRelatedToMinMax}.
+ * both run over the same pairs of evaluated solutions, and must agree on every pair. prints the time and the bytes
+ * allocated per comparison on this thread, the bytes where the JVM can measure them, and exits with status 1 if the
+ * two comparisons disagree.
+ * <p>
+ * run with: java -cp target/classes com.parker.david.DominanceBenchmark [comparisons]
+ */
+public class DominanceBenchmark {
+
+	public static void main(String[] args) {
+		final int comparisons = (args.length > 0) ? Integer.parseInt(args[0]) : 20000000; // the comparisons per measured run
+		final int solutionCount = 1000;
+		final int warmupRuns = 3;
+
+		//three objectives, mixing minimisation and maximisation, on random points
+		ObjectiveSet objectives = new ObjectiveSet();
+		objectives.add(ObjectiveFunction.Type.Minimisation, x -> x[0] * x[0] + x[1]);
+		objectives.add(ObjectiveFunction.Type.Maximisation, x -> x[0] - x[1] * x[1]);
+		objectives.add(ObjectiveFunction.Type.Minimisation, x -> Math.abs(x[0] - x[1]));
+		CandidateSolutionFactory solutionFactory = new CandidateSolutionFactory(objectives, 3);
+		SplittableRandom random = new SplittableRandom(42);
+		CandidateSolution[] solutions = new CandidateSolution[solutionCount];
+		for (int i = 0; i < solutionCount; i++) {
+			solutions[i] = solutionFactory.getCandidateSolution(new double[]{random.nextDouble(-1, 1), random.nextDouble(-1, 1)});
+			solutions[i].getFitnessValues();
+		}
+
+		for (int i = 0; i < solutionCount; i++) {
+			for (int j = 0; j < solutionCount; j++) {
+				if (solutions[i].compareTo(solutions[j]) != compareByDeltas(objectives, solutions[i], solutions[j])) {
+					System.out.println("the comparisons disagree on solutions " + i + " and " + j);
+					System.exit(1);
+				}
+			}
+		}
+
+		for (int run = 0; run < warmupRuns; run++) {
+			measure(false, objectives, solutions, comparisons / 10);
+			measure(true, objectives, solutions, comparisons / 10);
+		}
+		System.out.println(measure(false, objectives, solutions, comparisons));
+		System.out.println(measure(true, objectives, solutions, comparisons));
+	}
+
+	/**
+	 * the comparison compareTo made before {@link ObjectiveSet#compare}, from the signs of every fitness delta
+	 */
+	private static int compareByDeltas(ObjectiveSet objectives, CandidateSolution base, CandidateSolution comparison) {
+		ArrayList<Double> deltas = objectives.fitnessDeltasRelatedToMinMax(base, comparison);
+		boolean positiveDeltaExists = false;
+		boolean negativeDeltaExists = false;
+		for (double delta : deltas) {
+			if (delta > 0) positiveDeltaExists = true;
+			else if (delta < 0) negativeDeltaExists = true;
+		}
+		if (positiveDeltaExists == negativeDeltaExists) return 0;
+		return positiveDeltaExists ? 1 : -1;
+	}
+
+	/**
+	 * run a number of comparisons over pairs of the solutions
+	 *
+	 * @return a line giving the time and bytes per comparison
+	 */
+	private static String measure(boolean byDeltas, ObjectiveSet objectives, CandidateSolution[] solutions, int comparisons) {
+		long allocatedBefore = allocatedBytes();
+		long start = System.nanoTime();
+		long dominating = 0;
+		int i = 0;
+		int j = 1;
+		for (int c = 0; c < comparisons; c++) {
+			int result = byDeltas ? compareByDeltas(objectives, solutions[i], solutions[j]) : solutions[i].compareTo(solutions[j]);
+			dominating += result;
+			if (++i == solutions.length) i = 0;
+			j += 7;
+			if (j >= solutions.length) j -= solutions.length;
+		}
+		double nanoseconds = (System.nanoTime() - start) / (double) comparisons;
+		long allocatedAfter = allocatedBytes();
+
+		String bytes = (allocatedBefore < 0 || allocatedAfter < 0) ? "not measurable" : String.format("%.1f", (allocatedAfter - allocatedBefore) / (double) comparisons);
+		// the sum of the results is printed so the comparisons can't be optimised away
+		return String.format("%-26s %6.2f ns per comparison, %s bytes per comparison (result sum %d)",
+				byDeltas ? "fitness deltas (previous)" : "compareTo (primitive)", nanoseconds, bytes, dominating);
+	}
+
+	/**
+	 * the bytes allocated by this thread so far, -1 if the JVM can't measure them
+	 */
+	private static long allocatedBytes() {
+		ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+		if (!(threads instanceof com.sun.management.ThreadMXBean))
+			return -1;
+		com.sun.management.ThreadMXBean allocations = (com.sun.management.ThreadMXBean) threads;
+		if (!allocations.isThreadAllocatedMemorySupported() || !allocations.isThreadAllocatedMemoryEnabled())
+			return -1;
+		return allocations.getThreadAllocatedBytes(Thread.currentThread().getId());
+	}
+}
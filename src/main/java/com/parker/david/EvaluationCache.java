@@ -0,0 +1,153 @@
+package com.parker.david;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * a bounded cache of objective values, keyed on decision variables rounded the way the solution factory rounds them,
+ * so solutions on the same point of the rounding lattice share one evaluation. see {@link ObjectiveSet#setCache}.
+ * <p>
+ * with a cache set, objectives are evaluated at the solution's lattice point rather than at its exact decision
+ * variables, which differ by at most the rounding. so a cached value is exactly what evaluating again would give, and
+ * the results don't depend on the capacity or on which solution reached a lattice point first.
+ * the least recently used entry is dropped once the cache is full. each entry holds a long per decision variable
+ * and a double per objective. lookups are synchronized, so searches on several threads may share an objective set
+ */
+public class EvaluationCache {
+
+	/**
+	 * the rounded decision variables of a cached lattice point, as whole multiples of the rounding
+	 */
+	private static class LatticePoint {
+		long[] coordinates;
+		int hash;
+
+		LatticePoint(long[] coordinates) {
+			this.coordinates = coordinates;
+			this.hash = Arrays.hashCode(coordinates);
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			return other instanceof LatticePoint && Arrays.equals(coordinates, ((LatticePoint) other).coordinates);
+		}
+	}
+
+	/**
+	 * the most entries the cache holds
+	 */
+	private final int capacity;
+
+	/**
+	 * the objective values of each cached lattice point, in least recently used order
+	 */
+	private final LinkedHashMap<LatticePoint, double[]> entries;
+
+	/**
+	 * the key a lookup is made with, refilled for every lookup and only copied when a new entry is added
+	 */
+	private final LatticePoint lookup = new LatticePoint(new long[0]);
+
+	/**
+	 * statistics on the lookups
+	 */
+	private long hits = 0;
+	private long misses = 0;
+
+	/**
+	 * constructor
+	 *
+	 * @param capacity the most lattice points to hold, the least recently used one is dropped to make room
+	 */
+	public EvaluationCache(int capacity) {
+		if (capacity < 1)
+			throw new IllegalArgumentException("the capacity must be at least 1, got " + capacity);
+		this.capacity = capacity;
+		this.entries = new LinkedHashMap<LatticePoint, double[]>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<LatticePoint, double[]> eldest) {
+				return size() > EvaluationCache.this.capacity;
+			}
+		};
+	}
+
+	/**
+	 * get the objective values of a solution's lattice point, from the cache if it holds them, otherwise by evaluating
+	 * the objectives there and caching the result
+	 *
+	 * @param solution   the solution to evaluate
+	 * @param fitnesses  filled with the fitness for each objective
+	 * @param objectives the objectives to evaluate on a miss
+	 * @return the filled array
+	 */
+	double[] getFitnesses(CandidateSolution solution, double[] fitnesses, ObjectiveSet objectives) {
+		double[] decisionVariables = solution.decisionVariableArray();
+		double roundingFactor = solution.roundingFactor();
+		long[] coordinates;
+		synchronized (this) {
+			if (lookup.coordinates.length != decisionVariables.length)
+				lookup.coordinates = new long[decisionVariables.length];
+			for (int i = 0; i < decisionVariables.length; i++) {
+				lookup.coordinates[i] = Math.round(decisionVariables[i] * roundingFactor);
+			}
+			lookup.hash = Arrays.hashCode(lookup.coordinates);
+
+			double[] cached = entries.get(lookup);
+			if (cached != null) {
+				hits++;
+				System.arraycopy(cached, 0, fitnesses, 0, fitnesses.length);
+				return fitnesses;
+			}
+			misses++;
+			coordinates = lookup.coordinates.clone();
+		}
+
+		//evaluated outside the lock so other threads can look up meanwhile, at the lattice point rounded exactly as the
+		//solution factory rounds. two threads missing on the same point both evaluate it and get the same values
+		double[] latticePoint = new double[coordinates.length];
+		for (int i = 0; i < latticePoint.length; i++) {
+			latticePoint[i] = coordinates[i] / roundingFactor;
+		}
+		objectives.evaluateAt(latticePoint, fitnesses);
+		synchronized (this) {
+			entries.put(new LatticePoint(coordinates), fitnesses.clone());
+		}
+		return fitnesses;
+	}
+
+	/**
+	 * the number of lookups answered from the cache
+	 */
+	public synchronized long getHits() {
+		return hits;
+	}
+
+	/**
+	 * the number of lookups that had to evaluate the objectives
+	 */
+	public synchronized long getMisses() {
+		return misses;
+	}
+
+	/**
+	 * the number of lattice points held
+	 */
+	public synchronized int size() {
+		return entries.size();
+	}
+
+	/**
+	 * summary of the lookups, for the search output
+	 */
+	@Override
+	public synchronized String toString() {
+		long lookups = hits + misses;
+		return hits + " hits, " + misses + " misses (" + String.format("%.1f", (lookups == 0) ? 0.0 : 100.0 * hits / lookups) + "% hit rate), " + entries.size() + " of " + capacity + " entries held";
+	}
+}
@@ -0,0 +1,119 @@
+package com.parker.david;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Paths;
+import java.util.SplittableRandom;
+
+/**
+ * a benchmark of compiled expressions, the test problem loaded from problems/schaffer.problem, whose objectives are
+ * {@link com.parker.david.expression.Expression}s, against the same problem written by hand as lambdas in
+ * {@link Main#problemObjectives()}. both are evaluated through their objective set, so the expressions are timed through
+ * their getFitness as a search calls it.
+ * <p>
+ * before timing, both are checked to agree exactly on every point of a sample, fitness for fitness and on
+ * feasibility against {@link Main#problemConstraints(double)}, including points on and either side of the bounds, so a
+ * search loaded from the file follows the hand-coded search exactly. exits with status 1 if they disagree. prints the
+ * evaluations per second, best of several runs, and the bytes allocated per evaluation where the JVM can measure them.
+ * as with {@link ObjectiveBenchmark}, for a clean comparison run each kind in its own JVM.
+ * <p>
+ * run from the project directory with:
+ * java -cp target/classes com.parker.david.ExpressionBenchmark [expression|lambda|both] [evaluations]
+ */
+public class ExpressionBenchmark {
+
+	public static void main(String[] args) throws IOException {
+		final String kind = (args.length > 0) ? args[0] : "both";
+		final int evaluations = (args.length > 1) ? Integer.parseInt(args[1]) : 5000000; // the evaluations per measured run
+		final int checkedPoints = 1000000;
+		final int solutionCount = 1024;
+		final int runs = 5;
+		final double maxRadius = 100000; // the bound of the hand-coded constraints, as the problem file gives it
+
+		ProblemFile problem = ProblemFile.load(Paths.get("problems/schaffer.problem"));
+		ObjectiveSet expressions = problem.getObjectives();
+		CompiledConstraintSet expressionConstraints = problem.getConstraints().compile();
+		ObjectiveSet lambdas = Main.problemObjectives();
+		CompiledConstraintSet lambdaConstraints = Main.problemConstraints(maxRadius);
+
+		//points as the search makes them, rounded to 2 decimals, across and beyond the feasible range
+		CandidateSolutionFactory solutionFactory = new CandidateSolutionFactory(lambdas, 2);
+		SplittableRandom random = new SplittableRandom(42);
+		double[] bounds = {-maxRadius, maxRadius};
+		double[] expressionFitnesses = new double[expressions.size()];
+		double[] lambdaFitnesses = new double[lambdas.size()];
+		for (int p = 0; p < checkedPoints; p++) {
+			double x = (p < 6) ? bounds[p % 2] + (p / 2 - 1) * 0.01 : random.nextDouble(-1.5 * maxRadius, 1.5 * maxRadius);
+			CandidateSolution solution = solutionFactory.getCandidateSolution(new double[]{x});
+			expressions.evaluate(solution, expressionFitnesses);
+			lambdas.evaluate(solution, lambdaFitnesses);
+			for (int j = 0; j < lambdaFitnesses.length; j++) {
+				if (Double.doubleToLongBits(expressionFitnesses[j]) != Double.doubleToLongBits(lambdaFitnesses[j])) {
+					System.out.println("the objectives disagree at x0 = " + solution.getIthDecisionVariable(0) + ", objective " + j + ": " + expressionFitnesses[j] + " and " + lambdaFitnesses[j]);
+					System.exit(1);
+				}
+			}
+			if (expressionConstraints.isFeasible(solution) != lambdaConstraints.isFeasible(solution)) {
+				System.out.println("the constraints disagree at x0 = " + solution.getIthDecisionVariable(0));
+				System.exit(1);
+			}
+		}
+		System.out.println("expressions and lambdas agree on " + checkedPoints + " points");
+
+		CandidateSolution[] solutions = new CandidateSolution[solutionCount];
+		for (int i = 0; i < solutionCount; i++) {
+			solutions[i] = solutionFactory.getCandidateSolution(new double[]{random.nextDouble(-maxRadius, maxRadius)});
+		}
+		if (!kind.equals("lambda"))
+			System.out.println(measure("compiled expressions", expressions, solutions, evaluations, runs));
+		if (!kind.equals("expression"))
+			System.out.println(measure("hand-coded lambdas", lambdas, solutions, evaluations, runs));
+	}
+
+	/**
+	 * evaluate the solutions in turn, in several runs, the first of which warms up
+	 *
+	 * @return a line giving the best evaluations per second and the bytes per evaluation
+	 */
+	private static String measure(String name, ObjectiveSet objectives, CandidateSolution[] solutions, int evaluations, int runs) {
+		double[] fitnesses = new double[objectives.size()];
+		double best = 0;
+		double bytes = -1;
+		double checksum = 0;
+		for (int run = 0; run <= runs; run++) {
+			long allocatedBefore = allocatedBytes();
+			long start = System.nanoTime();
+			int i = 0;
+			for (int e = 0; e < evaluations; e++) {
+				objectives.evaluate(solutions[i], fitnesses);
+				checksum += fitnesses[0];
+				if (++i == solutions.length) i = 0;
+			}
+			double seconds = (System.nanoTime() - start) / 1e9;
+			long allocatedAfter = allocatedBytes();
+			if (run == 0)
+				continue;
+			best = Math.max(best, evaluations / seconds);
+			if (allocatedBefore >= 0 && allocatedAfter >= 0)
+				bytes = (allocatedAfter - allocatedBefore) / (double) evaluations;
+		}
+
+		// the checksum is printed so the evaluations can't be optimised away
+		return String.format("%-21s %6.1fM evaluations/s, %s bytes per evaluation (checksum %.3e)",
+				name, best / 1e6, (bytes < 0) ? "not measurable" : String.format("%.1f", bytes), checksum);
+	}
+
+	/**
+	 * the bytes allocated by this thread so far, -1 if the JVM can't measure them
+	 */
+	private static long allocatedBytes() {
+		ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+		if (!(threads instanceof com.sun.management.ThreadMXBean))
+			return -1;
+		com.sun.management.ThreadMXBean allocations = (com.sun.management.ThreadMXBean) threads;
+		if (!allocations.isThreadAllocatedMemorySupported() || !allocations.isThreadAllocatedMemoryEnabled())
+			return -1;
+		return allocations.getThreadAllocatedBytes(Thread.currentThread().getId());
+	}
+}
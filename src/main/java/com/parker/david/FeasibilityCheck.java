@@ -0,0 +1,17 @@
+package com.parker.david;
+
+/**
+ * anything that can tell whether a solution satisfies the constraints of the problem, either a {@link ConstraintSet}
+ * as it is built or the {@link CompiledConstraintSet} made from it. neighbourhood generators that only need to reject
+ * infeasible solutions take this, so they work with either
+ */
+public interface FeasibilityCheck {
+
+	/**
+	 * check whether a solution satisfies every constraint
+	 *
+	 * @param solution the solution to check
+	 * @return true if the solution is feasible, false if any constraint is violated
+	 */
+	boolean isFeasible(CandidateSolution solution);
+}
@@ -1,12 +1,31 @@
 package com.parker.david;
 
+import com.parker.david.Neighbourhood.HitAndRunNeighbourhood;
+import com.parker.david.Neighbourhood.MultipleTryNeighbourhood;
 import com.parker.david.Neighbourhood.RandomDistanceFromOriginal;
 import com.parker.david.Neighbourhood.RandomDistanceFromOriginalEpochAdaptive;
 import com.parker.david.Neighbourhood.SolutionFromNeighbourhoodGenerator;
+import com.parker.david.Neighbourhood.SparseMoveNeighbourhood;
+import com.parker.david.acceptance.AcceptanceCriterion;
+import com.parker.david.acceptance.EarlyExitEnergyAcceptance;
+import com.parker.david.acceptance.ExactEnergyAcceptance;
+import com.parker.david.acceptance.NearestNeighbourSurrogate;
+import com.parker.david.acceptance.SampledEnergyAcceptance;
+import com.parker.david.acceptance.SurrogateScreenedAcceptance;
+import com.parker.david.archive.BiObjectiveTreeArchive;
+import com.parker.david.archive.CopyOnWriteArchive;
+import com.parker.david.archive.EpsilonArchive;
+import com.parker.david.archive.ListArchive;
+import com.parker.david.archive.NDTreeArchive;
+import com.parker.david.archive.SolutionArchive;
+import com.parker.david.archive.SynchronizedArchive;
 import com.parker.david.epoch.EpochController;
 import com.parker.david.epoch.StaticAcceptanceRejectionDependant;
 import com.parker.david.initialisation.AcceptAll;
 import com.parker.david.initialisation.InitialTemperatureAssignment;
+import com.parker.david.parallel.IslandModel;
+import com.parker.david.parallel.ParallelTempering;
+import com.parker.david.parallel.SpeculativeSearch;
 import com.parker.david.search.MaxIterationsWithoutImprovement;
 import com.parker.david.search.MinimumFinalTemperature;
 import com.parker.david.search.TerminationController;
@@ -25,6 +44,12 @@ import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
 
 
 public class Main {
@@ -34,25 +59,78 @@ public class Main {
 	/**
 	 * main function. Initialises a lot of variables and then runs DBMOSA with the initialisation completed
 	 */
-	public static void main(String[] args) throws IOException {
+	public static void main(String[] args) throws IOException, ExecutionException, InterruptedException {
+		//our replication parameters, the master seed may be given as the first argument to repeat a set of runs
+		final int replications = 10;
+		final int threads = Runtime.getRuntime().availableProcessors();
+		final long masterSeed = (args.length > 0) ? Long.parseLong(args[0]) : System.currentTimeMillis();
+
 		//delete the old output data
 		FileUtils.deleteDirectory(new File(tempOutputPathPrefix));
 		Files.createDirectory(Paths.get(tempOutputPathPrefix));
 
-		//run 3 times
+		//run the replications in parallel, the summaries come back in replication order
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		List<String> summaries;
+		try {
+			summaries = new ReplicationRunner(executor, masterSeed).run(replications, Main::initialiseAndRunDbmosa);
+//			summaries = new ReplicationRunner(executor, masterSeed).run(replications, Main::initialiseAndRunParallelTempering);
+//			summaries = new ReplicationRunner(executor, masterSeed).run(replications, Main::initialiseAndRunIslandModel);
+		} finally {
+			executor.shutdown();
+		}
+
 		FileWriter output = new FileWriter(tempOutputPathPrefix + "output_" + ZonedDateTime.now(ZoneId.of("GMT+2")).format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss")) + ".txt", true);
-		for (int i = 0; i < 10; i++) {
-			String thisRun = initialiseAndRunDbmosa() + "\n\n";
+		String header = "master seed: " + masterSeed + "\n\n";
+		System.out.print(header);
+		output.append(header);
+		for (String summary : summaries) {
+			String thisRun = summary + "\n\n";
 			System.out.print(thisRun);
 			output.append(thisRun);
 		}
 		output.close();
 	}
 
+	/**
+	 * the constraints of our test problem, |x0| <= maxRadius, compiled so they are checked together
+	 */
+	static CompiledConstraintSet problemConstraints(double maxRadius) {
+		ConstraintSet constraints = new ConstraintSet();
+		constraints.add(new Constraint(new ArrayList<>(Collections.singletonList(1)), Constraint.Operators.GREATER_THAN_OR_EQUAL, -maxRadius));
+		constraints.add(new Constraint(new ArrayList<>(Collections.singletonList(1)), Constraint.Operators.LESS_THAN_OR_EQUAL, maxRadius));
+		return constraints.compile();
+	}
+
+	/**
+	 * the objectives of our test problem, minimise x0^2 and (x0-2)^2
+	 */
+	static ObjectiveSet problemObjectives() {
+		ObjectiveSet objectives = new ObjectiveSet();
+		objectives.add(ObjectiveFunction.Type.Minimisation, x -> x[0] * x[0]); //x0^2
+		objectives.add(ObjectiveFunction.Type.Minimisation, x -> (x[0] - 2) * (x[0] - 2)); //(x0-2)^2
+		return objectives;
+	}
+
+	/**
+	 * the extremal solutions of our test problem, used to find an initial temperature
+	 */
+	private static ArrayList<CandidateSolution> problemExtremalSolutions(CandidateSolutionFactory solutionFactory) {
+		ArrayList<CandidateSolution> extremalSolutions = new ArrayList<>();
+		extremalSolutions.add(solutionFactory.getCandidateSolution(new double[]{100000.0})); //the max value for x
+		extremalSolutions.add(solutionFactory.getCandidateSolution(new double[]{0.0})); //the zero for x^2
+		extremalSolutions.add(solutionFactory.getCandidateSolution(new double[]{2.0})); //the zero for (x-2)^2
+		extremalSolutions.add(solutionFactory.getCandidateSolution(new double[]{-100000.0})); //the min value for x
+		return extremalSolutions;
+	}
+
 	/**
 	 * set up the algorithm parameters and then run it
+	 *
+	 * @param replication the number of this replication, used to name its output
+	 * @param seed        the seed for this replication
 	 */
-	private static String initialiseAndRunDbmosa() throws IOException {
+	private static String initialiseAndRunDbmosa(int replication, long seed) throws IOException, ExecutionException, InterruptedException {
 		//our search parameters
 		final int maxSolutionAcceptances = 5;
 		final int maxSolutionRejections = 7;
@@ -71,28 +149,33 @@ public class Main {
 
 		final double terminationTemperature = 0.00001;
 		final int iterationsWithoutImprovement = 300;
-		final int maxArchiveSize = 1000;
+		final int maxArchiveSize = 0; // 0 never stops the search on archive size, the epsilon archive is bounded by construction
+		final double[] archiveEpsilons = {0.005, 0.005};
+
+		final int sampleSize = 64;
+		final int sampleValidationInterval = 100;
 
-		//set our constraints
+		final int speculationDepth = 4;
+		final int batchSize = 8;
+		final int variablesPerMove = 1;
+		final int evaluationCacheCapacity = 100000;
+
+		final int surrogateSamples = 500;
+		final int surrogateNeighbours = 4;
+		final double surrogateMargin = 2.0; // neighbour standard deviations a prediction must be dominated by
+		final int surrogateAuditInterval = 20;
+
+		//set our problem
 		final double maxRadius = 100000;
-		ConstraintSet constraints = new ConstraintSet();
-		constraints.add(new Constraint(new ArrayList<>(Collections.singletonList(1)), Constraint.Operators.GREATER_THAN_OR_EQUAL, -maxRadius));
-		constraints.add(new Constraint(new ArrayList<>(Collections.singletonList(1)), Constraint.Operators.LESS_THAN_OR_EQUAL, maxRadius));
+		CompiledConstraintSet constraints = problemConstraints(maxRadius);
+		ObjectiveSet objectives = problemObjectives();
+//		ProblemFile problem = ProblemFile.load(Paths.get("problems/schaffer.problem")); // the same problem, loaded from a file
+//		CompiledConstraintSet constraints = problem.getConstraints().compile();
+//		ObjectiveSet objectives = problem.getObjectives();
+//		objectives.setCache(new EvaluationCache(evaluationCacheCapacity)); // share evaluations between solutions on the same rounding lattice point
 
-		//set our objectives
-		ObjectiveSet objectives = new ObjectiveSet();
-		objectives.add(new ObjectiveFunction(ObjectiveFunction.Type.Minimisation) { //x0^2
-			@Override
-			public double getFitness(CandidateSolution solution) {
-				return solution.getIthDecisionVariable(0) * solution.getIthDecisionVariable(0);
-			}
-		});
-		objectives.add(new ObjectiveFunction(ObjectiveFunction.Type.Minimisation) { //(x0-2)^2
-			@Override
-			public double getFitness(CandidateSolution solution) {
-				return (solution.getIthDecisionVariable(0) - 2) * (solution.getIthDecisionVariable(0) - 2);
-			}
-		});
+		//every stochastic component gets its own stream split from the replication's seed, so a seeded run replays exactly
+		SplittableRandom random = new SplittableRandom(seed);
 
 		//generate our components
 		CandidateSolutionFactory solutionFactory = new CandidateSolutionFactory(objectives, 2);
@@ -101,84 +184,267 @@ public class Main {
 //		TemperatureController temperatureController = new AdaptiveLinearSchedule(coolingDelta, heatingDelta, minimumTemperature, epochTemperatureFactor);
 		TerminationController stoppingCriterion = new MaxIterationsWithoutImprovement(iterationsWithoutImprovement);
 //		TerminationController stoppingCriterion = new MinimumFinalTemperature(terminationTemperature);
+		SolutionArchive archive = new EpsilonArchive(objectives, archiveEpsilons);
+//		SolutionArchive archive = new BiObjectiveTreeArchive(objectives);
+//		SolutionArchive archive = new NDTreeArchive(objectives);
+//		SolutionArchive archive = new ListArchive();
+		AcceptanceCriterion acceptance = new EarlyExitEnergyAcceptance(random.split());
+//		AcceptanceCriterion acceptance = new ExactEnergyAcceptance(random.split());
+//		AcceptanceCriterion acceptance = new SampledEnergyAcceptance(sampleSize, sampleValidationInterval, random.split());
+//		acceptance = new SurrogateScreenedAcceptance(acceptance, objectives, new NearestNeighbourSurrogate(surrogateSamples, surrogateNeighbours), surrogateMargin, surrogateAuditInterval); // skip evaluating moves predicted to be dominated
 
 		//generate an initial solution
-		CandidateSolution solution = solutionFactory.getCandidateSolution(new ArrayList<>(Collections.singletonList(0.0))); // our base solution is at the origin
-		solution = (new RandomDistanceFromOriginal(maxRadius, constraints)).neighbourhoodSolution(solution); // generate our first random solution, located anywhere in the feasible solution space
+		CandidateSolution solution = solutionFactory.getCandidateSolution(new double[]{0.0}); // our base solution is at the origin
+		solution = (new RandomDistanceFromOriginal(maxRadius, constraints, random.split())).neighbourhoodSolution(solution); // generate our first random solution, located anywhere in the feasible solution space
 
 		//create a test neighbourhood based on the functions x^2 and (x-2)^2 with limits of |x| < 10^5
-		ArrayList<CandidateSolution> extremalSolutions = new ArrayList<>();
-		extremalSolutions.add(solutionFactory.getCandidateSolution(new ArrayList<>(Collections.singletonList(100000.0)))); //the max value for x
-		extremalSolutions.add(solutionFactory.getCandidateSolution(new ArrayList<>(Collections.singletonList(0.0)))); //the zero for x^2
-		extremalSolutions.add(solutionFactory.getCandidateSolution(new ArrayList<>(Collections.singletonList(2.0)))); //the zero for (x-2)^2
-		extremalSolutions.add(solutionFactory.getCandidateSolution(new ArrayList<>(Collections.singletonList(-100000.0)))); //the min value for x
+		ArrayList<CandidateSolution> extremalSolutions = problemExtremalSolutions(solutionFactory);
 
 		//generate the initial temperature, note that we can't use an adaptive generation method here as there is no search meta yet (which contains the temperature)
-		InitialTemperatureAssignment initialTemperatureAssignment = new AcceptAll(initialisationAcceptedSolutionsNeeded, extremalSolutions);
-		double initialTemperature = initialTemperatureAssignment.getInitialTemperature(solution, objectives, new RandomDistanceFromOriginal(maxDecisionVariableVariation, constraints));
+		InitialTemperatureAssignment initialTemperatureAssignment = new AcceptAll(initialisationAcceptedSolutionsNeeded, extremalSolutions, random.split());
+		double initialTemperature = initialTemperatureAssignment.getInitialTemperature(solution, objectives, new RandomDistanceFromOriginal(maxDecisionVariableVariation, constraints, random.split()));
 
 		//create an object to hold the search progress
 		SearchMetaInfo searchMeta = new SearchMetaInfo(initialTemperature);
-		SolutionFromNeighbourhoodGenerator nextNeighbourGenerator = new RandomDistanceFromOriginalEpochAdaptive(maxDecisionVariableVariation, minDecisionVariableVariation, constraints, searchMeta); // next neighbour generator
+		SolutionFromNeighbourhoodGenerator nextNeighbourGenerator = new RandomDistanceFromOriginalEpochAdaptive(maxDecisionVariableVariation, minDecisionVariableVariation, constraints, searchMeta, random.split()); // next neighbour generator
+//		SolutionFromNeighbourhoodGenerator nextNeighbourGenerator = new SparseMoveNeighbourhood(maxDecisionVariableVariation, variablesPerMove, constraints, random.split()); // change only a few variables per move
+//		SolutionFromNeighbourhoodGenerator nextNeighbourGenerator = new HitAndRunNeighbourhood(maxDecisionVariableVariation, constraints, random.split()); // step a random feasible distance along a random direction
+//		nextNeighbourGenerator = new MultipleTryNeighbourhood(nextNeighbourGenerator, batchSize, objectives, archive, acceptance, searchMeta, ForkJoinPool.commonPool()); // propose the best of a batch of neighbours
 
 		//run the algorithm
-		return dbmosa(searchMeta, temperatureController, solution, nextNeighbourGenerator, stoppingCriterion, epochEnd, maxArchiveSize);
+		String runName = String.format("run%03d", replication);
+		String summary = dbmosa(searchMeta, temperatureController, solution, nextNeighbourGenerator, stoppingCriterion, epochEnd, archive, acceptance, maxArchiveSize, runName);
+//		String summary = speculativeDbmosa(searchMeta, temperatureController, solution, nextNeighbourGenerator, stoppingCriterion, epochEnd, archive, acceptance, maxArchiveSize, speculationDepth, random.split(), runName);
+		return "replication " + replication + ", seed " + seed + "\n" +
+				summary +
+				"objective evaluations: " + objectives.getEvaluationCount() + " (" + solutionFactory.getSolutionsCreated() + " solutions created)\n" +
+				((objectives.getCache() == null) ? "" : "evaluation cache: " + objectives.getCache() + "\n");
 	}
 
 	/**
-	 * the DBMOSA algorithm itself
+	 * set up a parallel tempering search on the same problem and run it, one chain per processor
+	 *
+	 * @param replication the number of this replication, used to name its output
+	 * @param seed        the seed for this replication
 	 */
-	public static String dbmosa(SearchMetaInfo searchMeta, TemperatureController tempControl, CandidateSolution solution, SolutionFromNeighbourhoodGenerator neighbourhoodGenerator, TerminationController stoppingCriterion, EpochController epochEnd, int maxArchiveSize) throws IOException {
+	private static String initialiseAndRunParallelTempering(int replication, long seed) throws IOException, ExecutionException, InterruptedException {
+		//our search parameters
+		final int chainCount = Runtime.getRuntime().availableProcessors();
+		final double coldestTemperatureFactor = 0.001; // the coldest chain runs at this fraction of the initial temperature
+		final int swapInterval = 50;
+		final int maxRounds = 10000;
 
-		SolutionArchive archive = new SolutionArchive(); // create an archive
-		archive.addIfNotDominated(solution); // add in our initial solution
+		final int maxSolutionAcceptances = 5;
+		final int maxSolutionRejections = 7;
+
+		final double maxDecisionVariableVariation = 150.0;
+		final double minDecisionVariableVariation = 0.1;
+
+		final int initialisationAcceptedSolutionsNeeded = 10;
 
-		//begin our iterations
-		while (stoppingCriterion.continueSearch(searchMeta) && archive.getArchive().size() < maxArchiveSize) {
-
-			//generate a new solution
-			CandidateSolution newSolution = neighbourhoodGenerator.neighbourhoodSolution(solution);
-
-			//check if the solution is accepted
-			boolean isAccepted = AcceptanceComputer.isAccepted(archive, solution, newSolution, searchMeta.getTemperature());
-
-			// if the solution is accepted, log an acceptance, if a new epoch is triggered:
-			// set a cooler temperature, and set a new solution for the next iteration
-			if (isAccepted) {
-				searchMeta.solutionAcceptance(archive.addIfNotDominated(newSolution));
-				if (epochEnd.newEpochTriggered(searchMeta)) {
-					searchMeta.newEpoch();
-					tempControl.cool(searchMeta);
-				}
-				solution = newSolution;
-			}
-			// if the solution is rejected, log a rejection, and if a new epoch is triggered:
-			// set a hotter temperature, and keep this solution for the next iteration
-			else {
-				searchMeta.solutionRejection();
-				if (epochEnd.newEpochTriggered(searchMeta)) {
-					searchMeta.newEpoch();
-					tempControl.heat(searchMeta);
-				}
-			}
+		final int iterationsWithoutImprovement = 300;
+		final double[] archiveEpsilons = {0.005, 0.005};
+
+		//set our problem
+		final double maxRadius = 100000;
+		CompiledConstraintSet constraints = problemConstraints(maxRadius);
+		ObjectiveSet objectives = problemObjectives();
+
+		SplittableRandom random = new SplittableRandom(seed);
+
+		//generate our shared components, the archive is used by every chain at once
+		CandidateSolutionFactory solutionFactory = new CandidateSolutionFactory(objectives, 2);
+		TerminationController stoppingCriterion = new MaxIterationsWithoutImprovement(iterationsWithoutImprovement);
+		SolutionArchive archive = new SynchronizedArchive(new EpsilonArchive(objectives, archiveEpsilons));
+//		SolutionArchive archive = new SynchronizedArchive(new NDTreeArchive(objectives));
+//		SolutionArchive archive = new CopyOnWriteArchive();
+
+		//the hottest chain runs at the initial temperature of a normal search
+		CandidateSolution origin = solutionFactory.getCandidateSolution(new double[]{0.0});
+		CandidateSolution firstSolution = (new RandomDistanceFromOriginal(maxRadius, constraints, random.split())).neighbourhoodSolution(origin);
+		InitialTemperatureAssignment initialTemperatureAssignment = new AcceptAll(initialisationAcceptedSolutionsNeeded, problemExtremalSolutions(solutionFactory), random.split());
+		double initialTemperature = initialTemperatureAssignment.getInitialTemperature(firstSolution, objectives, new RandomDistanceFromOriginal(maxDecisionVariableVariation, constraints, random.split()));
+		double[] temperatures = ParallelTempering.geometricLadder(initialTemperature * coldestTemperatureFactor, initialTemperature, chainCount);
+
+		//each chain starts from its own random solution with its own components
+		List<ParallelTempering.Chain> chains = new ArrayList<>();
+		for (double temperature : temperatures) {
+			CandidateSolution solution = (new RandomDistanceFromOriginal(maxRadius, constraints, random.split())).neighbourhoodSolution(origin);
+			SearchMetaInfo searchMeta = new SearchMetaInfo(temperature);
+			SolutionFromNeighbourhoodGenerator nextNeighbourGenerator = new RandomDistanceFromOriginalEpochAdaptive(maxDecisionVariableVariation, minDecisionVariableVariation, constraints, searchMeta, random.split());
+			AcceptanceCriterion acceptance = new EarlyExitEnergyAcceptance(random.split(), true);
+			EpochController epochEnd = new StaticAcceptanceRejectionDependant(maxSolutionAcceptances, maxSolutionRejections);
+			chains.add(new ParallelTempering.Chain(temperature, solution, searchMeta, nextNeighbourGenerator, acceptance, epochEnd));
 		}
 
-		//write the data out to a file
+		//run the algorithm, the chains get their own threads so they never wait on the replications
+		ParallelTempering parallelTempering = new ParallelTempering(chains, archive, swapInterval, random.split());
+		ExecutorService executor = Executors.newFixedThreadPool(chainCount);
+//		ExecutorService executor = Executors.newSingleThreadExecutor(); // run the chains one after another, so a seeded run is reproducible
+		String summary;
+		try {
+			summary = parallelTempering.run(executor, stoppingCriterion, maxRounds);
+		} finally {
+			executor.shutdown();
+		}
+		String runName = String.format("pt%03d", replication);
+
+		return "replication " + replication + ", seed " + seed + "\n" +
+				summary +
+				"data timestamp : " + writeArchive(archive, runName) + "\n" +
+				"objective evaluations: " + objectives.getEvaluationCount() + " (" + solutionFactory.getSolutionsCreated() + " solutions created)\n";
+	}
+
+	/**
+	 * set up an island model search on the same problem and run it, one island per processor
+	 *
+	 * @param replication the number of this replication, used to name its output
+	 * @param seed        the seed for this replication
+	 */
+	private static String initialiseAndRunIslandModel(int replication, long seed) throws IOException, ExecutionException, InterruptedException {
+		//our search parameters
+		final int islandCount = Runtime.getRuntime().availableProcessors();
+		final int migrationInterval = 10; // epochs between migrations
+		final int migrantCount = 3;
+
+		final int maxSolutionAcceptances = 5;
+		final int maxSolutionRejections = 7;
+
+		final double coolingCoefficient = 0.95;
+		final double heatingCoefficient = 1.05;
+		final double minimumTemperature = 0.001;
+
+		final double maxDecisionVariableVariation = 150.0;
+		final double minDecisionVariableVariation = 0.1;
+
+		final int initialisationAcceptedSolutionsNeeded = 10;
+
+		final int iterationsWithoutImprovement = 300;
+		final double[] archiveEpsilons = {0.005, 0.005};
+
+		//set our problem
+		final double maxRadius = 100000;
+		CompiledConstraintSet constraints = problemConstraints(maxRadius);
+		ObjectiveSet objectives = problemObjectives();
+
+		SplittableRandom random = new SplittableRandom(seed);
+
+		//every island starts at the initial temperature of a normal search
+		CandidateSolutionFactory solutionFactory = new CandidateSolutionFactory(objectives, 2);
+		CandidateSolution origin = solutionFactory.getCandidateSolution(new double[]{0.0});
+		CandidateSolution firstSolution = (new RandomDistanceFromOriginal(maxRadius, constraints, random.split())).neighbourhoodSolution(origin);
+		InitialTemperatureAssignment initialTemperatureAssignment = new AcceptAll(initialisationAcceptedSolutionsNeeded, problemExtremalSolutions(solutionFactory), random.split());
+		double initialTemperature = initialTemperatureAssignment.getInitialTemperature(firstSolution, objectives, new RandomDistanceFromOriginal(maxDecisionVariableVariation, constraints, random.split()));
+
+		//each island starts from its own random solution with its own components
+		List<IslandModel.Island> islands = new ArrayList<>();
+		for (int i = 0; i < islandCount; i++) {
+			CandidateSolution solution = (new RandomDistanceFromOriginal(maxRadius, constraints, random.split())).neighbourhoodSolution(origin);
+			SearchMetaInfo searchMeta = new SearchMetaInfo(initialTemperature);
+			TemperatureController temperatureController = new GeometricSchedule(coolingCoefficient, heatingCoefficient, minimumTemperature);
+			SolutionFromNeighbourhoodGenerator nextNeighbourGenerator = new RandomDistanceFromOriginalEpochAdaptive(maxDecisionVariableVariation, minDecisionVariableVariation, constraints, searchMeta, random.split());
+			TerminationController stoppingCriterion = new MaxIterationsWithoutImprovement(iterationsWithoutImprovement);
+			EpochController epochEnd = new StaticAcceptanceRejectionDependant(maxSolutionAcceptances, maxSolutionRejections);
+			SolutionArchive archive = new EpsilonArchive(objectives, archiveEpsilons);
+			AcceptanceCriterion acceptance = new EarlyExitEnergyAcceptance(random.split());
+			islands.add(new IslandModel.Island(searchMeta, temperatureController, solution, nextNeighbourGenerator, stoppingCriterion, epochEnd, archive, acceptance, random.split()));
+		}
+
+		//run the algorithm, the islands get their own threads so they never wait on the replications
+		IslandModel islandModel = new IslandModel(islands, migrationInterval, migrantCount);
+		SolutionArchive merged = new EpsilonArchive(objectives, archiveEpsilons);
+		ExecutorService executor = Executors.newFixedThreadPool(islandCount);
+		String summary;
+		try {
+			summary = islandModel.run(executor, merged);
+		} finally {
+			executor.shutdown();
+		}
+		String runName = String.format("islands%03d", replication);
+
+		return "replication " + replication + ", seed " + seed + "\n" +
+				summary +
+				"data timestamp : " + writeArchive(merged, runName) + "\n" +
+				"objective evaluations: " + objectives.getEvaluationCount() + " (" + solutionFactory.getSolutionsCreated() + " solutions created)\n";
+	}
+
+	/**
+	 * write the fitnesses and decision variables of the archived solutions out to files
+	 *
+	 * @param runName a name for this run, added to the output file names
+	 * @return the timestamp added to the output file names
+	 */
+	private static String writeArchive(SolutionArchive archive, String runName) throws IOException {
 		String date = ZonedDateTime.now(ZoneId.of("GMT+2")).format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss-SS"));
 
-		FileWriter fitnessOutput = new FileWriter(tempOutputPathPrefix + "fitness_" + date + ".csv", true);
+		FileWriter fitnessOutput = new FileWriter(tempOutputPathPrefix + "fitness_" + runName + "_" + date + ".csv", true);
 		archive.getArchive().forEach(sol -> sol.fitnessToFile(fitnessOutput));
 		fitnessOutput.close();
 
-		FileWriter decisionVariableOutput = new FileWriter(tempOutputPathPrefix + "decisions_" + date + ".csv", true);
+		FileWriter decisionVariableOutput = new FileWriter(tempOutputPathPrefix + "decisions_" + runName + "_" + date + ".csv", true);
 		archive.getArchive().forEach(sol -> sol.decisionVariablesToFile(decisionVariableOutput));
 		decisionVariableOutput.close();
 
+		return date;
+	}
+
+	/**
+	 * the DBMOSA algorithm itself
+	 *
+	 * @param runName a name for this run, added to its output file names so runs writing at the same time don't clash
+	 */
+	public static String dbmosa(SearchMetaInfo searchMeta, TemperatureController tempControl, CandidateSolution solution, SolutionFromNeighbourhoodGenerator neighbourhoodGenerator, TerminationController stoppingCriterion, EpochController epochEnd, SolutionArchive archive, AcceptanceCriterion acceptance, int maxArchiveSize, String runName) throws IOException {
+
+		archive.addIfNotDominated(solution); // add in our initial solution
+		DbmosaStep step = new DbmosaStep(searchMeta, tempControl, solution, neighbourhoodGenerator, epochEnd, archive, acceptance);
+
+		//begin our iterations, each proposes a move, decides on it and adjusts the temperature at the end of an epoch
+		while (stoppingCriterion.continueSearch(searchMeta) && (maxArchiveSize <= 0 || archive.size() < maxArchiveSize)) {
+			step.step();
+		}
+
+		//write the data out to a file
+		String date = writeArchive(archive, runName);
+
 		//write the summary information to console and a file
+		return searchSummary(searchMeta, archive, acceptance, date);
+	}
+
+	/**
+	 * the DBMOSA algorithm with speculative move evaluation, see {@link SpeculativeSearch}. each move draws from its own
+	 * seed instead of the generator's stream, so its trajectory differs from {@link #dbmosa}, but is the same at every
+	 * speculation depth for the same move seeds. several moves are evaluated at once
+	 *
+	 * @param speculationDepth the number of moves evaluated at once, each on its own thread
+	 * @param moveSeeds        the random number source seeding each move, used instead of the generator's own
+	 * @param runName          a name for this run, added to its output file names so runs writing at the same time don't clash
+	 */
+	public static String speculativeDbmosa(SearchMetaInfo searchMeta, TemperatureController tempControl, CandidateSolution solution, SolutionFromNeighbourhoodGenerator neighbourhoodGenerator, TerminationController stoppingCriterion, EpochController epochEnd, SolutionArchive archive, AcceptanceCriterion acceptance, int maxArchiveSize, int speculationDepth, SplittableRandom moveSeeds, String runName) throws IOException, ExecutionException, InterruptedException {
+		ExecutorService executor = Executors.newFixedThreadPool(speculationDepth);
+		SpeculativeSearch speculativeSearch = new SpeculativeSearch(executor, speculationDepth, moveSeeds);
+		try {
+			speculativeSearch.search(searchMeta, tempControl, solution, neighbourhoodGenerator, stoppingCriterion, epochEnd, archive, acceptance, maxArchiveSize);
+		} finally {
+			executor.shutdown();
+		}
+
+		//write the data out to a file
+		String date = writeArchive(archive, runName);
+
+		//write the summary information to console and a file
+		return searchSummary(searchMeta, archive, acceptance, date) +
+				"speculation: " + speculativeSearch + "\n";
+	}
+
+	/**
+	 * the summary of a finished search
+	 */
+	private static String searchSummary(SearchMetaInfo searchMeta, SolutionArchive archive, AcceptanceCriterion acceptance, String date) {
 		return "final epochs: " + searchMeta.getEpoch() + "\n" +
 				"final iteration count: " + searchMeta.getIteration() + "\n" +
 				"final temperature: " + searchMeta.getTemperature() + "\n" +
-				"final set of (" + archive.getArchive().size() + ") solutions: " + "\n" +
+				"final set of (" + archive.size() + ") solutions: " + "\n" +
+				"acceptance: " + acceptance + "\n" +
 				"data timestamp : " + date + "\n";
 	}
 }
@@ -0,0 +1,176 @@
+package com.parker.david.Neighbourhood;
+
+import com.parker.david.CandidateSolution;
+import com.parker.david.CompiledConstraintSet;
+
+import java.util.SplittableRandom;
+
+/**
+ * a hit and run neighbourhood, picks a random direction, works out from the linear constraints how far a step can go
+ * along it either way while staying feasible, and steps a uniformly random distance within that interval. so unlike
+ * the random distance generators, a proposal is feasible on the first draw instead of being retried until one is,
+ * which matters near the boundary of a tight feasible region. the step is never longer than maxStepLength.
+ * <p>
+ * a step can only fail the feasibility check through rounding at the edge of the interval, or through a constraint
+ * that isn't linear, and is then halved, a bounded number of times, before giving up with a zero length step.
+ * so a move costs at most a fixed number of passes over the constraints, and null is never returned as long as the
+ * original solution is feasible. written into the search's proposal buffer, a move allocates nothing
+ */
+public class HitAndRunNeighbourhood implements SolutionFromNeighbourhoodGenerator {
+
+	/**
+	 * the compiled constraints, their linear rows give the feasible interval along a direction
+	 */
+	private final CompiledConstraintSet constraints;
+
+	/**
+	 * a random number generator
+	 */
+	private final SplittableRandom randomNumberGenerator;
+
+	/**
+	 * the longest step allowed in either direction, the straight line distance between the original and the proposal
+	 */
+	private final double maxStepLength;
+
+	/**
+	 * the number of times a step that fails the feasibility check is halved before falling back to a zero length step
+	 */
+	private static final int maxStepHalvings = 8;
+
+	/**
+	 * scratch arrays reused from move to move, the start of the step and its direction, sized on the first move, and
+	 * the feasible interval along the direction
+	 */
+	private double[] start = null;
+	private double[] direction = null;
+	private final double[] interval = new double[2];
+
+	/**
+	 * statistics on the moves
+	 */
+	private long moves = 0;
+	private long halvedSteps = 0;
+	private long zeroSteps = 0;
+
+	/**
+	 * constructor
+	 *
+	 * @param maxStepLength         the longest step allowed, measured as straight line distance
+	 * @param constraints           the compiled constraints which bound the optimisation problem
+	 * @param randomNumberGenerator the random number source for this generator
+	 */
+	public HitAndRunNeighbourhood(double maxStepLength, CompiledConstraintSet constraints, SplittableRandom randomNumberGenerator) {
+		this.maxStepLength = maxStepLength;
+		this.constraints = constraints;
+		this.randomNumberGenerator = randomNumberGenerator;
+	}
+
+	/**
+	 * step a random feasible distance in a random direction from the supplied solution
+	 *
+	 * @param originalSolution the original solution around which a new solution is being created, must be feasible
+	 * @return a feasible solution near the original
+	 */
+	@Override
+	public CandidateSolution neighbourhoodSolution(CandidateSolution originalSolution) {
+		return neighbourhoodSolution(originalSolution, randomNumberGenerator);
+	}
+
+	/**
+	 * step from the supplied solution as above, drawing from the given random numbers
+	 */
+	@Override
+	public CandidateSolution neighbourhoodSolution(CandidateSolution originalSolution, SplittableRandom random) {
+		CandidateSolution solution = originalSolution.copy();
+		writeNeighbour(originalSolution, solution, random);
+		return solution;
+	}
+
+	/**
+	 * step from the supplied solution as above into the proposal buffer, drawing from the generator's own random numbers
+	 */
+	@Override
+	public CandidateSolution neighbourhoodSolution(CandidateSolution originalSolution, CandidateSolution proposal) {
+		writeNeighbour(originalSolution, proposal, randomNumberGenerator);
+		return proposal;
+	}
+
+	/**
+	 * write a feasible step from the original into the target, halving a step that fails the feasibility check
+	 */
+	private void writeNeighbour(CandidateSolution originalSolution, CandidateSolution solution, SplittableRandom random) {
+		moves++;
+		//the interval is worked out from the target, since copying rounds the decision variables
+		solution.copyFrom(originalSolution);
+		int dimensions = solution.numberOfDecisionVariables();
+		if (start == null || start.length != dimensions) {
+			start = new double[dimensions];
+			direction = new double[dimensions];
+		}
+		for (int i = 0; i < dimensions; i++) {
+			start[i] = solution.getIthDecisionVariable(i);
+		}
+		randomDirection(direction, random);
+		constraints.feasibleStepInterval(solution, direction, maxStepLength, interval);
+		double step = interval[0] + random.nextDouble() * (interval[1] - interval[0]);
+
+		for (int halvings = 0; halvings < maxStepHalvings; halvings++) {
+			for (int i = 0; i < dimensions; i++) {
+				solution.setIthDecisionVariable(i, start[i] + step * direction[i]);
+			}
+			if (constraints.isFeasible(solution))
+				return;
+			halvedSteps++;
+			step /= 2;
+		}
+
+		//nothing feasible along this direction, stay where we are
+		zeroSteps++;
+		for (int i = 0; i < dimensions; i++) {
+			solution.setIthDecisionVariable(i, start[i]);
+		}
+	}
+
+	/**
+	 * fill the direction with one uniformly distributed over all directions, a vector of independent normal numbers
+	 * scaled to length 1
+	 */
+	private static void randomDirection(double[] direction, SplittableRandom random) {
+		int dimensions = direction.length;
+		double lengthSquared = 0;
+		while (lengthSquared == 0) {
+			for (int i = 0; i < dimensions; i++) {
+				direction[i] = nextGaussian(random);
+				lengthSquared += direction[i] * direction[i];
+			}
+		}
+		double length = Math.sqrt(lengthSquared);
+		for (int i = 0; i < dimensions; i++) {
+			direction[i] /= length;
+		}
+	}
+
+	/**
+	 * a standard normal number by the polar method, SplittableRandom has no nextGaussian
+	 */
+	private static double nextGaussian(SplittableRandom random) {
+		double u;
+		double v;
+		double s;
+		do {
+			u = 2 * random.nextDouble() - 1;
+			v = 2 * random.nextDouble() - 1;
+			s = u * u + v * v;
+		} while (s >= 1 || s == 0);
+		return u * Math.sqrt(-2 * Math.log(s) / s);
+	}
+
+	/**
+	 * summary of the moves, for the search output
+	 */
+	@Override
+	public String toString() {
+		return "hit and run (max step " + maxStepLength + "): " + moves + " moves, " + halvedSteps + " steps halved, " + zeroSteps + " zero length steps";
+	}
+}
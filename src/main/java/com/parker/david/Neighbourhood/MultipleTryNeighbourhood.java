@@ -0,0 +1,180 @@
+package com.parker.david.Neighbourhood;
+
+import com.parker.david.CandidateSolution;
+import com.parker.david.ObjectiveSet;
+import com.parker.david.SearchMetaInfo;
+import com.parker.david.acceptance.AcceptanceCriterion;
+import com.parker.david.archive.SolutionArchive;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * a multiple try neighbourhood, draws a batch of neighbours from another generator and proposes the one dominated by
+ * the fewest archived solutions. the batch is evaluated at once through the objective set's batch evaluation, split
+ * across a fork join pool if one is given, which pays off when objectives are expensive. the other members of the batch
+ * that no archived solution dominates are offered to the archive, so good solutions found along the way are not lost.
+ * since generating a move changes the archive, this generator can't be used to generate moves ahead of time
+ */
+public class MultipleTryNeighbourhood implements SolutionFromNeighbourhoodGenerator {
+
+	/**
+	 * the generator the batch is drawn from
+	 */
+	private final SolutionFromNeighbourhoodGenerator neighbourhoodGenerator;
+
+	/**
+	 * the number of neighbours drawn per move
+	 */
+	private final int batchSize;
+
+	/**
+	 * the objectives the batch is evaluated against
+	 */
+	private final ObjectiveSet objectives;
+
+	/**
+	 * the archive of the search, used to rank the batch and offered its non-dominated members
+	 */
+	private final SolutionArchive archive;
+
+	/**
+	 * the acceptance criterion of the search, told whenever the batch changes the archive
+	 */
+	private final AcceptanceCriterion acceptance;
+
+	/**
+	 * the progress of the search, told whenever the batch adds to the archive
+	 */
+	private final SearchMetaInfo searchMeta;
+
+	/**
+	 * the pool the batch is evaluated on, null to evaluate on the calling thread
+	 */
+	private final ForkJoinPool pool;
+
+	/**
+	 * statistics on the batches
+	 */
+	private long batches = 0;
+	private long offered = 0;
+	private long archived = 0;
+
+	/**
+	 * constructor
+	 *
+	 * @param neighbourhoodGenerator the generator the batch is drawn from
+	 * @param batchSize              the number of neighbours drawn per move
+	 * @param objectives             the objectives the batch is evaluated against
+	 * @param archive                the archive of the search
+	 * @param acceptance             the acceptance criterion of the search, told when batch members change the archive
+	 * @param searchMeta             the progress of the search, told when batch members are archived
+	 * @param pool                   the pool the batch is evaluated on, null to evaluate on the calling thread
+	 */
+	public MultipleTryNeighbourhood(SolutionFromNeighbourhoodGenerator neighbourhoodGenerator, int batchSize, ObjectiveSet objectives, SolutionArchive archive, AcceptanceCriterion acceptance, SearchMetaInfo searchMeta, ForkJoinPool pool) {
+		this.neighbourhoodGenerator = neighbourhoodGenerator;
+		this.batchSize = Math.max(1, batchSize);
+		this.objectives = objectives;
+		this.archive = archive;
+		this.acceptance = acceptance;
+		this.searchMeta = searchMeta;
+		this.pool = pool;
+	}
+
+	/**
+	 * constructor, evaluating the batch on the calling thread
+	 *
+	 * @param neighbourhoodGenerator the generator the batch is drawn from
+	 * @param batchSize              the number of neighbours drawn per move
+	 * @param objectives             the objectives the batch is evaluated against
+	 * @param archive                the archive of the search
+	 * @param acceptance             the acceptance criterion of the search, told when batch members change the archive
+	 * @param searchMeta             the progress of the search, told when batch members are archived
+	 */
+	public MultipleTryNeighbourhood(SolutionFromNeighbourhoodGenerator neighbourhoodGenerator, int batchSize, ObjectiveSet objectives, SolutionArchive archive, AcceptanceCriterion acceptance, SearchMetaInfo searchMeta) {
+		this(neighbourhoodGenerator, batchSize, objectives, archive, acceptance, searchMeta, null);
+	}
+
+	/**
+	 * draw a batch of neighbours and propose the least dominated one
+	 *
+	 * @param originalSolution the original solution around which a new solution is being created
+	 * @return the least dominated neighbour, null if no feasible neighbour was found
+	 */
+	@Override
+	public CandidateSolution neighbourhoodSolution(CandidateSolution originalSolution) {
+		List<CandidateSolution> batch = new ArrayList<>(batchSize);
+		for (int i = 0; i < batchSize; i++) {
+			addIfFeasible(batch, neighbourhoodGenerator.neighbourhoodSolution(originalSolution));
+		}
+		return choose(batch);
+	}
+
+	/**
+	 * draw a batch of neighbours from the given random numbers and propose the least dominated one
+	 */
+	@Override
+	public CandidateSolution neighbourhoodSolution(CandidateSolution originalSolution, SplittableRandom random) {
+		List<CandidateSolution> batch = new ArrayList<>(batchSize);
+		for (int i = 0; i < batchSize; i++) {
+			addIfFeasible(batch, neighbourhoodGenerator.neighbourhoodSolution(originalSolution, random));
+		}
+		return choose(batch);
+	}
+
+	/**
+	 * generators return null when they fail to find a feasible neighbour
+	 */
+	private static void addIfFeasible(List<CandidateSolution> batch, CandidateSolution solution) {
+		if (solution != null)
+			batch.add(solution);
+	}
+
+	/**
+	 * evaluate the batch, pick the member dominated by the fewest archived solutions, and offer the other
+	 * non-dominated members to the archive
+	 */
+	private CandidateSolution choose(List<CandidateSolution> batch) {
+		if (batch.isEmpty())
+			return null;
+		objectives.evaluate(batch, pool);
+		batches++;
+
+		int[] dominatedBy = new int[batch.size()];
+		int chosen = 0;
+		for (int i = 0; i < batch.size(); i++) {
+			dominatedBy[i] = archive.countDominating(batch.get(i));
+			if (dominatedBy[i] < dominatedBy[chosen])
+				chosen = i;
+		}
+
+		// the chosen member is left for the search to insert if it is accepted, so its insertion is counted as usual
+		boolean archiveChanged = false;
+		for (int i = 0; i < batch.size(); i++) {
+			if (i != chosen && dominatedBy[i] == 0) {
+				offered++;
+				if (archive.addIfNotDominated(batch.get(i))) {
+					archived++;
+					archiveChanged = true;
+				}
+			}
+		}
+		// an archived member counts as progress, as if the search had moved to it
+		if (archiveChanged) {
+			acceptance.archiveChanged();
+			searchMeta.solutionArchivedOutsideMove();
+		}
+
+		return batch.get(chosen);
+	}
+
+	/**
+	 * summary of the batches, for the search output
+	 */
+	@Override
+	public String toString() {
+		return "multiple try (batch size " + batchSize + "): " + batches + " batches, " + offered + " other non-dominated members offered to the archive, " + archived + " archived";
+	}
+}
@@ -1,11 +1,10 @@
 package com.parker.david.Neighbourhood;
 
 import com.parker.david.CandidateSolution;
-import com.parker.david.ConstraintSet;
+import com.parker.david.FeasibilityCheck;
 import com.parker.david.SearchMetaInfo;
 
-import java.util.Random;
-import java.util.concurrent.ThreadLocalRandom;
+import java.util.SplittableRandom;
 
 /**
  * calculates a defined size neighbourhood of solutions around the source, with random distance from the source
@@ -21,12 +20,12 @@ public class RandomDistanceFromOriginalEpochAdaptive implements SolutionFromNeig
 	/**
 	 * the constraints to allow generation only of feasible solutions
 	 */
-	ConstraintSet constraints;
+	FeasibilityCheck constraints;
 
 	/**
 	 * a random number generator
 	 */
-	private final Random randomNumberGenerator = ThreadLocalRandom.current();
+	private final SplittableRandom randomNumberGenerator;
 
 
 	/**
@@ -47,12 +46,14 @@ public class RandomDistanceFromOriginalEpochAdaptive implements SolutionFromNeig
 	 * @param searchMetaInfo            the current search progress
 	 * @param maxDecisionVariableChange the max change permitted for any decision variable
 	 * @param minDecisionVariableChange the min change permitted for any decision variable
+	 * @param randomNumberGenerator     the random number source for this generator
 	 */
-	public RandomDistanceFromOriginalEpochAdaptive(double maxDecisionVariableChange, double minDecisionVariableChange, ConstraintSet constraints, SearchMetaInfo searchMetaInfo) {
+	public RandomDistanceFromOriginalEpochAdaptive(double maxDecisionVariableChange, double minDecisionVariableChange, FeasibilityCheck constraints, SearchMetaInfo searchMetaInfo, SplittableRandom randomNumberGenerator) {
 		this.maxDecisionVariableChange = maxDecisionVariableChange;
 		this.minDecisionVariableChange = minDecisionVariableChange;
 		this.constraints = constraints;
 		this.searchMetaInfo = searchMetaInfo;
+		this.randomNumberGenerator = randomNumberGenerator;
 	}
 
 	/**
@@ -66,7 +67,33 @@ public class RandomDistanceFromOriginalEpochAdaptive implements SolutionFromNeig
 	 */
 	@Override
 	public CandidateSolution neighbourhoodSolution(CandidateSolution originalSolution) {
+		return neighbourhoodSolution(originalSolution, randomNumberGenerator);
+	}
+
+	/**
+	 * generate a solution around the supplied solution as above, drawing from the given random numbers
+	 */
+	@Override
+	public CandidateSolution neighbourhoodSolution(CandidateSolution originalSolution, SplittableRandom random) {
+		//generate a copy of the solution that doesn't affect the underlying data of the old solution
+		CandidateSolution solution = originalSolution.copy();
+		return writeNeighbour(originalSolution, solution, random) ? solution : null;
+	}
+
+	/**
+	 * write a solution around the supplied solution into the proposal buffer, drawing from the generator's own random numbers
+	 */
+	@Override
+	public CandidateSolution neighbourhoodSolution(CandidateSolution originalSolution, CandidateSolution proposal) {
+		return writeNeighbour(originalSolution, proposal, randomNumberGenerator) ? proposal : null;
+	}
 
+	/**
+	 * write a feasible solution around the original into the target, retrying up to 10 times
+	 *
+	 * @return false if no feasible solution was found
+	 */
+	private boolean writeNeighbour(CandidateSolution originalSolution, CandidateSolution solution, SplittableRandom random) {
 		//variation is adaptive, max(minChange,max*max(epoch+max))
 		double variation = Math.max(
 				maxDecisionVariableChange * maxDecisionVariableChange / (maxDecisionVariableChange + searchMetaInfo.getEpoch() - 1)
@@ -74,18 +101,18 @@ public class RandomDistanceFromOriginalEpochAdaptive implements SolutionFromNeig
 
 		//loop to try find a feasible solution
 		for (int infeasibleCounter = 0; infeasibleCounter < 10; infeasibleCounter++) {
-			//generate a copy of the solution that doesn't affect the underlying data of the old solution
-			CandidateSolution solution = originalSolution.copy();
+			//start each try from the original, rounded as a copy would be
+			solution.copyFrom(originalSolution);
 			for (int i = 0; i < solution.numberOfDecisionVariables(); i++) {
 				//get a random number between -1 and 1, and multiply by the max change allowed to get our adjustment for this decision var
-				double adjustment = ((0.5 - randomNumberGenerator.nextDouble()) * 2) * variation;
+				double adjustment = ((0.5 - random.nextDouble()) * 2) * variation;
 				solution.setIthDecisionVariable(i, solution.getIthDecisionVariable(i) + adjustment);
 			}
 			if (constraints.isFeasible(solution))
-				return solution;
+				return true;
 		}
 
-		//if we generate too many infeasible solutions, return null
-		return null;
+		//if we generate too many infeasible solutions, give up
+		return false;
 	}
 }
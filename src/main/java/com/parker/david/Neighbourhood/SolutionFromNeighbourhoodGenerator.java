@@ -2,11 +2,35 @@ package com.parker.david.Neighbourhood;
 
 import com.parker.david.CandidateSolution;
 
-import java.util.ArrayList;
+import java.util.SplittableRandom;
 
 /**
  * generate a <b>feasible</b> solution in the neighbourhood of the current solution
  */
 public interface SolutionFromNeighbourhoodGenerator {
 	CandidateSolution neighbourhoodSolution(CandidateSolution originalSolution);
+
+	/**
+	 * generate a solution in the neighbourhood of the current solution, drawing from the given random numbers instead
+	 * of the generator's own. lets a caller give every move its own stream, so moves can be generated ahead of time
+	 * or thrown away without changing the moves that follow
+	 *
+	 * @param originalSolution the original solution around which a new solution is being created
+	 * @param random           the random number source for this move
+	 * @return a feasible solution near the original, null if none was found
+	 */
+	CandidateSolution neighbourhoodSolution(CandidateSolution originalSolution, SplittableRandom random);
+
+	/**
+	 * generate a solution in the neighbourhood of the current solution into a proposal buffer the search reuses from
+	 * move to move, so a rejected move needn't allocate anything. generators that can write a move in place do so and
+	 * return the buffer, by default a new solution is generated and returned instead
+	 *
+	 * @param originalSolution the original solution around which a new solution is being created
+	 * @param proposal         the buffer to write the new solution into, with the same number of decision variables
+	 * @return the proposal buffer or a new solution holding a feasible solution near the original, null if none was found
+	 */
+	default CandidateSolution neighbourhoodSolution(CandidateSolution originalSolution, CandidateSolution proposal) {
+		return neighbourhoodSolution(originalSolution);
+	}
 }
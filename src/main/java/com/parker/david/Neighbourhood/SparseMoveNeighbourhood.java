@@ -0,0 +1,312 @@
+package com.parker.david.Neighbourhood;
+
+import com.parker.david.CandidateSolution;
+import com.parker.david.CompiledConstraintSet;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * a neighbourhood for problems with many decision variables, each move changes only a few randomly chosen variables,
+ * by at most maxDecisionVariableChange each, rounded as the solution factory rounds. feasibility is checked on only the
+ * rows of the compiled constraints the changed variables appear in, updating the weighted sums of the original solution,
+ * see {@link CompiledConstraintSet#isFeasibleAfterMove}, and the move is recorded on the new solution so objectives with
+ * a delta evaluation only look at the changed variables.
+ * <p>
+ * the weighted sums of one solution are held, and once a proposal made here is accepted its move is applied to them,
+ * so moves from it start from its sums instead of summing the whole matrix again. written into a proposal buffer, a
+ * move only puts back the variables the previous move from the same original changed. so with the buffer, a move costs
+ * time in the number of rows its variables appear in, not in the number of variables or constraints.
+ * the original solution must be feasible
+ */
+public class SparseMoveNeighbourhood implements SolutionFromNeighbourhoodGenerator {
+
+	/**
+	 * the compiled constraints, indexed by variable
+	 */
+	private final CompiledConstraintSet constraints;
+
+	/**
+	 * a random number generator
+	 */
+	private final SplittableRandom randomNumberGenerator;
+
+	/**
+	 * the max any changed decision variable may be changed
+	 */
+	private final double maxDecisionVariableChange;
+
+	/**
+	 * the number of decision variables changed per move
+	 */
+	private final int variablesPerMove;
+
+	/**
+	 * a move proposed here, the solution it started from and the change in each variable it changed
+	 */
+	private static class Move {
+		CandidateSolution origin;
+		int[] changedVariables;
+		double[] deltas;
+	}
+
+	/**
+	 * the moves that made recent proposals, so when one is accepted its move can be applied to the held sums.
+	 * solutions don't override equals, so this is keyed on identity
+	 */
+	private final Map<CandidateSolution, Move> recentMoves = new LinkedHashMap<CandidateSolution, Move>(32, 0.75f, true) {
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<CandidateSolution, Move> eldest) {
+			return size() > recentMovesLimit;
+		}
+	};
+	private static final int recentMovesLimit = 32;
+
+	/**
+	 * the solution whose weighted constraint sums are held, and those sums
+	 */
+	private CandidateSolution summed = null;
+	private double[] sums;
+
+	/**
+	 * the sums are summed again from scratch after this many moves have been applied to them, so rounding in the carried
+	 * sums can't build up
+	 */
+	private static final int movesBetweenResums = 1000;
+
+	/**
+	 * the number of moves applied to the sums since they were last summed from scratch
+	 */
+	private int movesSinceResum = 0;
+
+	/**
+	 * the last original solution moved from, and the variables that copying it changes by rounding them.
+	 * every proposal made here is already rounded, so only solutions from elsewhere are scanned for these
+	 */
+	private CandidateSolution roundedOrigin = null;
+	private int[] roundingChanges = new int[0];
+	private int roundingChangeCount = 0;
+
+	/**
+	 * the proposal buffer last written and the original its move started from, so the next move from the same original
+	 * only puts back the variables the last one changed
+	 */
+	private CandidateSolution buffer = null;
+	private CandidateSolution bufferOrigin = null;
+
+	/**
+	 * scratch space reused by every try, the variables a try moves, the variables changed from the original and the
+	 * change in each
+	 */
+	private final int[] moved;
+	private int[] changed;
+	private double[] deltas;
+	private final CompiledConstraintSet.MoveCheck check;
+
+	/**
+	 * constructor
+	 *
+	 * @param maxDecisionVariableChange the max change permitted for a changed decision variable
+	 * @param variablesPerMove          the number of decision variables changed per move
+	 * @param constraints               the compiled constraints which bound the optimisation problem
+	 * @param randomNumberGenerator     the random number source for this generator
+	 */
+	public SparseMoveNeighbourhood(double maxDecisionVariableChange, int variablesPerMove, CompiledConstraintSet constraints, SplittableRandom randomNumberGenerator) {
+		this.maxDecisionVariableChange = maxDecisionVariableChange;
+		this.variablesPerMove = Math.max(1, variablesPerMove);
+		this.constraints = constraints;
+		this.randomNumberGenerator = randomNumberGenerator;
+		this.moved = new int[this.variablesPerMove];
+		this.changed = new int[this.variablesPerMove];
+		this.deltas = new double[this.variablesPerMove];
+		this.check = constraints.newMoveCheck();
+	}
+
+	/**
+	 * generate a solution around the supplied solution that differs in only a few decision variables
+	 *
+	 * @param originalSolution the original solution around which a new solution is being created, must be feasible
+	 * @return a feasible solution near the original, null if none was found
+	 */
+	@Override
+	public CandidateSolution neighbourhoodSolution(CandidateSolution originalSolution) {
+		return neighbourhoodSolution(originalSolution, randomNumberGenerator);
+	}
+
+	/**
+	 * generate a solution around the supplied solution as above, drawing from the given random numbers
+	 */
+	@Override
+	public CandidateSolution neighbourhoodSolution(CandidateSolution originalSolution, SplittableRandom random) {
+		double[] originalSums = sumsOf(originalSolution);
+		int baseCount = roundingChangesOf(originalSolution);
+		CandidateSolution solution = originalSolution.copy();
+		//the tries below reuse the record of what was last moved in the buffer
+		buffer = null;
+
+		//loop to try find a feasible solution
+		for (int infeasibleCounter = 0; infeasibleCounter < 10; infeasibleCounter++) {
+			int changedCount = tryMove(originalSolution, solution, originalSums, baseCount, random);
+			if (changedCount >= 0) {
+				Move move = new Move();
+				record(move, originalSolution, changedCount);
+				solution.setMove(originalSolution, move.changedVariables);
+				recentMoves.put(solution, move);
+				return solution;
+			}
+			putBack(originalSolution, solution);
+		}
+
+		//if we generate too many infeasible solutions, return null
+		return null;
+	}
+
+	/**
+	 * generate a solution as above, written into the proposal buffer
+	 */
+	@Override
+	public CandidateSolution neighbourhoodSolution(CandidateSolution originalSolution, CandidateSolution proposal) {
+		double[] originalSums = sumsOf(originalSolution);
+		int baseCount = roundingChangesOf(originalSolution);
+		if (proposal == buffer && originalSolution == bufferOrigin) {
+			putBack(originalSolution, proposal);
+		} else {
+			proposal.copyFrom(originalSolution);
+			buffer = proposal;
+			bufferOrigin = originalSolution;
+		}
+
+		for (int infeasibleCounter = 0; infeasibleCounter < 10; infeasibleCounter++) {
+			int changedCount = tryMove(originalSolution, proposal, originalSums, baseCount, randomNumberGenerator);
+			if (changedCount >= 0) {
+				Move move = recentMoves.get(proposal);
+				if (move == null)
+					move = new Move();
+				record(move, originalSolution, changedCount);
+				proposal.setMove(originalSolution, move.changedVariables);
+				recentMoves.put(proposal, move);
+				return proposal;
+			}
+			putBack(originalSolution, proposal);
+		}
+		return null;
+	}
+
+	/**
+	 * move a few randomly chosen variables of a rounded copy of the original, and check the result
+	 *
+	 * @return the number of variables changed from the original, -1 if the result is infeasible
+	 */
+	private int tryMove(CandidateSolution originalSolution, CandidateSolution solution, double[] originalSums, int baseCount, SplittableRandom random) {
+		int variableCount = originalSolution.numberOfDecisionVariables();
+
+		// copying rounds every variable, so variables the original holds unrounded have changed too
+		System.arraycopy(roundingChanges, 0, changed, 0, baseCount);
+		int changedCount = baseCount;
+
+		chooseVariables(variableCount, Math.min(variablesPerMove, variableCount), random);
+		for (int m = 0; m < Math.min(variablesPerMove, variableCount); m++) {
+			int i = moved[m];
+			//get a random number between -1 and 1, and multiply by the max change allowed to get our adjustment for this decision var
+			double adjustment = (0.5 - random.nextDouble()) * 2 * maxDecisionVariableChange;
+			solution.setIthDecisionVariable(i, solution.round(solution.getIthDecisionVariable(i) + adjustment));
+			if (!contains(changed, baseCount, i))
+				changed[changedCount++] = i;
+		}
+
+		for (int c = 0; c < changedCount; c++) {
+			deltas[c] = solution.getIthDecisionVariable(changed[c]) - originalSolution.getIthDecisionVariable(changed[c]);
+		}
+		return constraints.isFeasibleAfterMove(solution, originalSums, changed, deltas, changedCount, check) ? changedCount : -1;
+	}
+
+	/**
+	 * undo the variables the last try moved, leaving the rounded copy of the original
+	 */
+	private void putBack(CandidateSolution originalSolution, CandidateSolution solution) {
+		for (int m = 0; m < Math.min(variablesPerMove, originalSolution.numberOfDecisionVariables()); m++) {
+			int i = moved[m];
+			solution.setIthDecisionVariable(i, solution.round(originalSolution.getIthDecisionVariable(i)));
+		}
+	}
+
+	/**
+	 * copy the variables the last try changed, and the change in each, into a move
+	 */
+	private void record(Move move, CandidateSolution originalSolution, int changedCount) {
+		move.origin = originalSolution;
+		if (move.changedVariables == null || move.changedVariables.length != changedCount) {
+			move.changedVariables = new int[changedCount];
+			move.deltas = new double[changedCount];
+		}
+		System.arraycopy(changed, 0, move.changedVariables, 0, changedCount);
+		System.arraycopy(deltas, 0, move.deltas, 0, changedCount);
+	}
+
+	/**
+	 * the weighted constraint sums of a solution. if it was proposed here from the solution whose sums are held, its move
+	 * is applied to them, otherwise they are summed from scratch
+	 */
+	private double[] sumsOf(CandidateSolution solution) {
+		if (solution == summed)
+			return sums;
+		Move move = recentMoves.get(solution);
+		if (sums != null && move != null && move.origin == summed && ++movesSinceResum < movesBetweenResums) {
+			constraints.applyMove(sums, move.changedVariables, move.deltas, move.changedVariables.length);
+		} else {
+			sums = (sums == null) ? constraints.weightedSums(solution) : constraints.weightedSums(solution, sums);
+			movesSinceResum = 0;
+		}
+		summed = solution;
+		return sums;
+	}
+
+	/**
+	 * find the variables of an original solution that copying it changes by rounding, once per original
+	 *
+	 * @return the number of them, held at the start of roundingChanges
+	 */
+	private int roundingChangesOf(CandidateSolution originalSolution) {
+		if (originalSolution == roundedOrigin)
+			return roundingChangeCount;
+		roundedOrigin = originalSolution;
+		roundingChangeCount = 0;
+		if (!recentMoves.containsKey(originalSolution)) {
+			for (int i = 0; i < originalSolution.numberOfDecisionVariables(); i++) {
+				double value = originalSolution.getIthDecisionVariable(i);
+				if (originalSolution.round(value) != value) {
+					if (roundingChangeCount == roundingChanges.length)
+						roundingChanges = Arrays.copyOf(roundingChanges, Math.max(1, 2 * roundingChanges.length));
+					roundingChanges[roundingChangeCount++] = i;
+				}
+			}
+		}
+		if (changed.length < roundingChangeCount + variablesPerMove) {
+			changed = new int[roundingChangeCount + variablesPerMove];
+			deltas = new double[roundingChangeCount + variablesPerMove];
+		}
+		return roundingChangeCount;
+	}
+
+	/**
+	 * choose distinct variables uniformly at random into moved, drawing again on a repeat. only the random numbers
+	 * decide the choice, so a move depends on nothing but its random stream
+	 */
+	private void chooseVariables(int variableCount, int count, SplittableRandom random) {
+		for (int c = 0; c < count; c++) {
+			do {
+				moved[c] = random.nextInt(variableCount);
+			} while (contains(moved, c, moved[c]));
+		}
+	}
+
+	private static boolean contains(int[] values, int count, int value) {
+		for (int i = 0; i < count; i++) {
+			if (values[i] == value)
+				return true;
+		}
+		return false;
+	}
+}
@@ -0,0 +1,118 @@
+package com.parker.david;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.SplittableRandom;
+
+/**
+ * a benchmark of objective evaluation through the objective set, the test problem x^2 and (x-2)^2 written as anonymous
+ * {@link ObjectiveFunction} subclasses, which the set adapts with {@link ObjectiveFunction#asPrimitive()}, against the
+ * same problem written as {@link PrimitiveObjectiveFunction} lambdas. both sets evaluate the same solutions and must
+ * give exactly the same fitnesses. prints the evaluations per second, best of several runs, and the bytes allocated
+ * per evaluation where the JVM can measure them, and exits with status 1 if the fitnesses differ.
+ * <p>
+ * both kinds share the call sites in the objective set, so once one kind has run the other is measured with those
+ * call sites already seeing more classes. for a clean comparison run each kind in its own JVM.
+ * <p>
+ * run with: java -cp target/classes com.parker.david.ObjectiveBenchmark [subclass|primitive|both] [evaluations]
+ */
+public class ObjectiveBenchmark {
+
+	public static void main(String[] args) {
+		final String kind = (args.length > 0) ? args[0] : "both";
+		final int evaluations = (args.length > 1) ? Integer.parseInt(args[1]) : 5000000; // the evaluations per measured run
+		final int solutionCount = 1024;
+		final int runs = 5;
+
+		ObjectiveSet subclasses = new ObjectiveSet();
+		subclasses.add(new ObjectiveFunction(ObjectiveFunction.Type.Minimisation) {
+			@Override
+			public double getFitness(CandidateSolution solution) {
+				double x = solution.getIthDecisionVariable(0);
+				return x * x;
+			}
+		});
+		subclasses.add(new ObjectiveFunction(ObjectiveFunction.Type.Minimisation) {
+			@Override
+			public double getFitness(CandidateSolution solution) {
+				double x = solution.getIthDecisionVariable(0);
+				return (x - 2) * (x - 2);
+			}
+		});
+
+		ObjectiveSet primitives = new ObjectiveSet();
+		primitives.add(ObjectiveFunction.Type.Minimisation, x -> x[0] * x[0]);
+		primitives.add(ObjectiveFunction.Type.Minimisation, x -> (x[0] - 2) * (x[0] - 2));
+
+		CandidateSolutionFactory solutionFactory = new CandidateSolutionFactory(primitives, 2);
+		SplittableRandom random = new SplittableRandom(42);
+		CandidateSolution[] solutions = new CandidateSolution[solutionCount];
+		for (int i = 0; i < solutionCount; i++) {
+			solutions[i] = solutionFactory.getCandidateSolution(new double[]{random.nextDouble(-100000, 100000)});
+		}
+
+		double[] subclassFitnesses = new double[subclasses.size()];
+		double[] primitiveFitnesses = new double[primitives.size()];
+		for (int i = 0; i < solutionCount; i++) {
+			subclasses.evaluate(solutions[i], subclassFitnesses);
+			primitives.evaluate(solutions[i], primitiveFitnesses);
+			for (int j = 0; j < subclassFitnesses.length; j++) {
+				if (Double.doubleToLongBits(subclassFitnesses[j]) != Double.doubleToLongBits(primitiveFitnesses[j])) {
+					System.out.println("the objectives disagree on solution " + i + ", objective " + j + ": " + subclassFitnesses[j] + " and " + primitiveFitnesses[j]);
+					System.exit(1);
+				}
+			}
+		}
+
+		if (!kind.equals("primitive"))
+			System.out.println(measure("ObjectiveFunction subclasses", subclasses, solutions, evaluations, runs));
+		if (!kind.equals("subclass"))
+			System.out.println(measure("primitive lambdas", primitives, solutions, evaluations, runs));
+	}
+
+	/**
+	 * evaluate the solutions in turn, in several runs, the first of which warms up
+	 *
+	 * @return a line giving the best evaluations per second and the bytes per evaluation
+	 */
+	private static String measure(String name, ObjectiveSet objectives, CandidateSolution[] solutions, int evaluations, int runs) {
+		double[] fitnesses = new double[objectives.size()];
+		double best = 0;
+		double bytes = -1;
+		double checksum = 0;
+		for (int run = 0; run <= runs; run++) {
+			long allocatedBefore = allocatedBytes();
+			long start = System.nanoTime();
+			int i = 0;
+			for (int e = 0; e < evaluations; e++) {
+				objectives.evaluate(solutions[i], fitnesses);
+				checksum += fitnesses[0];
+				if (++i == solutions.length) i = 0;
+			}
+			double seconds = (System.nanoTime() - start) / 1e9;
+			long allocatedAfter = allocatedBytes();
+			if (run == 0)
+				continue;
+			best = Math.max(best, evaluations / seconds);
+			if (allocatedBefore >= 0 && allocatedAfter >= 0)
+				bytes = (allocatedAfter - allocatedBefore) / (double) evaluations;
+		}
+
+		// the checksum is printed so the evaluations can't be optimised away
+		return String.format("%-28s %6.1fM evaluations/s, %s bytes per evaluation (checksum %.3e)",
+				name, best / 1e6, (bytes < 0) ? "not measurable" : String.format("%.1f", bytes), checksum);
+	}
+
+	/**
+	 * the bytes allocated by this thread so far, -1 if the JVM can't measure them
+	 */
+	private static long allocatedBytes() {
+		ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+		if (!(threads instanceof com.sun.management.ThreadMXBean))
+			return -1;
+		com.sun.management.ThreadMXBean allocations = (com.sun.management.ThreadMXBean) threads;
+		if (!allocations.isThreadAllocatedMemorySupported() || !allocations.isThreadAllocatedMemoryEnabled())
+			return -1;
+		return allocations.getThreadAllocatedBytes(Thread.currentThread().getId());
+	}
+}
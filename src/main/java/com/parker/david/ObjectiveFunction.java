@@ -1,5 +1,8 @@
 package com.parker.david;
 
+/**
+ * an objective function over a whole candidate solution. the objective set adapts it to a {@link PrimitiveObjectiveFunction}
+ */
 public abstract class ObjectiveFunction {
 
 	/**
@@ -31,4 +34,34 @@ public abstract class ObjectiveFunction {
 	 * @param solution the solution for which the fitness is to be calculated
 	 */
 	abstract public double getFitness(CandidateSolution solution);
+
+	/**
+	 * get the fitness of a batch of solutions at once. override this to evaluate the whole batch in a tight loop over
+	 * the rows, or to share set up work between the solutions. by default each row is evaluated in turn by getFitness
+	 *
+	 * @param decisionVariables the decision variables of one solution per row, must not be modified
+	 * @param fitnesses         filled with the fitness of each row
+	 */
+	public void getFitnesses(double[][] decisionVariables, double[] fitnesses) {
+		for (int i = 0; i < decisionVariables.length; i++) {
+			fitnesses[i] = getFitness(new CandidateSolution(decisionVariables[i]));
+		}
+	}
+
+	/**
+	 * this objective function as a primitive objective function, each call wraps the decision variables in a bare solution
+	 */
+	PrimitiveObjectiveFunction asPrimitive() {
+		return new PrimitiveObjectiveFunction() {
+			@Override
+			public double getFitness(double[] decisionVariables) {
+				return ObjectiveFunction.this.getFitness(new CandidateSolution(decisionVariables));
+			}
+
+			@Override
+			public void getFitnesses(double[][] decisionVariables, double[] fitnesses) {
+				ObjectiveFunction.this.getFitnesses(decisionVariables, fitnesses);
+			}
+		};
+	}
 }
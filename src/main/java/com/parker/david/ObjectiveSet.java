@@ -1,34 +1,323 @@
 package com.parker.david;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * a set of all objective functions created
  */
 public class ObjectiveSet {
 	/**
-	 * internal collection of objective functions
+	 * internal collection of objective functions, objective functions over whole solutions are held through an adapter
 	 */
-	private ArrayList<ObjectiveFunction> objectiveFunctions = new ArrayList<>();
+	private PrimitiveObjectiveFunction[] objectiveFunctions = new PrimitiveObjectiveFunction[0];
+
+	/**
+	 * the direction of each objective, +1 for maximisation and -1 for minimisation.
+	 * multiplying a raw difference by this gives a delta that is positive when the first solution is better
+	 */
+	private double[] directions = new double[0];
+
+	/**
+	 * the number of times a solution has been evaluated against the full set of objectives, safe to update from several search threads
+	 */
+	private final LongAdder evaluationCount = new LongAdder();
+
+	/**
+	 * the cache solutions are looked up in before evaluating, null for no cache
+	 */
+	private EvaluationCache cache = null;
+
+	/**
+	 * a solution reached by this many moves in a row, each evaluated from the fitness of the one before, is evaluated in
+	 * full instead, so rounding in the carried fitnesses can't build up
+	 */
+	static final int movesBetweenFullEvaluations = 1000;
 
 	/**
 	 * return fitness array list
 	 */
 	public ArrayList<Double> getFitnesses(CandidateSolution solution) {
-		ArrayList<Double> fitnesses = new ArrayList<>();
-		for (ObjectiveFunction f : objectiveFunctions) {
-			fitnesses.add(f.getFitness(solution));
+		return solution.getFitnesses();
+	}
+
+	/**
+	 * evaluate every objective function for a solution. this is the only place objective functions are called,
+	 * solutions cache the result so each solution is evaluated once
+	 *
+	 * @param solution the solution for which the fitnesses are to be calculated
+	 * @return the fitness for each objective, in the order the objectives were added
+	 */
+	double[] evaluate(CandidateSolution solution) {
+		return evaluate(solution, new double[objectiveFunctions.length]);
+	}
+
+	/**
+	 * evaluate every objective function for a solution as above, into an existing array
+	 *
+	 * @param solution  the solution for which the fitnesses are to be calculated
+	 * @param fitnesses filled with the fitness for each objective
+	 * @return the filled array
+	 */
+	double[] evaluate(CandidateSolution solution, double[] fitnesses) {
+		if (cache != null)
+			return cache.getFitnesses(solution, fitnesses, this);
+		return evaluateAt(solution.decisionVariableArray(), fitnesses);
+	}
+
+	/**
+	 * evaluate every objective function at the given decision variables, bypassing the cache
+	 *
+	 * @param decisionVariables the decision variables to evaluate at
+	 * @param fitnesses         filled with the fitness for each objective
+	 * @return the filled array
+	 */
+	double[] evaluateAt(double[] decisionVariables, double[] fitnesses) {
+		for (int i = 0; i < fitnesses.length; i++) {
+			fitnesses[i] = objectiveFunctions[i].getFitness(decisionVariables);
 		}
+		evaluationCount.increment();
 		return fitnesses;
 	}
 
+	/**
+	 * evaluate a solution that was made from an evaluated solution by changing a few decision variables. objectives
+	 * that are {@link DeltaObjectiveFunction}s work from the fitness of the original, the rest are evaluated in full.
+	 * every {@link #movesBetweenFullEvaluations} moves in a row the solution evaluates itself in full instead
+	 *
+	 * @param original         the evaluated solution the move started from
+	 * @param moved            the solution after the move
+	 * @param changedVariables the indices of the decision variables the move changed
+	 * @param fitnesses        filled with the fitness for each objective
+	 * @return the filled array
+	 */
+	double[] evaluateMove(CandidateSolution original, CandidateSolution moved, int[] changedVariables, double[] fitnesses) {
+		//a cached value is for the moved solution's lattice point, which a delta from the original wouldn't give
+		if (cache != null)
+			return evaluate(moved, fitnesses);
+		double[] originalVariables = original.decisionVariableArray();
+		double[] originalFitnesses = original.getFitnessValues();
+		double[] movedVariables = moved.decisionVariableArray();
+		for (int i = 0; i < fitnesses.length; i++) {
+			if (objectiveFunctions[i] instanceof DeltaObjectiveFunction)
+				fitnesses[i] = ((DeltaObjectiveFunction) objectiveFunctions[i]).getFitnessAfterMove(originalVariables, originalFitnesses[i], movedVariables, changedVariables);
+			else
+				fitnesses[i] = objectiveFunctions[i].getFitness(movedVariables);
+		}
+		evaluationCount.increment();
+		return fitnesses;
+	}
+
+	/**
+	 * evaluate every objective function for a batch of decision vectors, each objective evaluating the whole batch at once
+	 *
+	 * @param decisionVariables the decision variables of one solution per row
+	 * @param fitnesses         filled with the fitness of each row for each objective, one row per solution
+	 */
+	public void evaluate(double[][] decisionVariables, double[][] fitnesses) {
+		evaluateRows(decisionVariables, fitnesses, 0, decisionVariables.length);
+	}
+
+	/**
+	 * evaluate a batch of decision vectors as above, split into smaller batches run across a fork join pool.
+	 * objective functions must be safe to evaluate from several threads
+	 *
+	 * @param decisionVariables the decision variables of one solution per row
+	 * @param fitnesses         filled with the fitness of each row for each objective, one row per solution
+	 * @param pool              the pool the batch is split across
+	 */
+	public void evaluate(double[][] decisionVariables, double[][] fitnesses, ForkJoinPool pool) {
+		int grain = Math.max(1, decisionVariables.length / (4 * pool.getParallelism()));
+		pool.invoke(new BatchEvaluation(decisionVariables, fitnesses, 0, decisionVariables.length, grain));
+	}
+
+	/**
+	 * evaluate every solution in the list that hasn't been evaluated yet as a single batch, and cache the results in the solutions
+	 *
+	 * @param solutions the solutions to evaluate
+	 */
+	public void evaluate(List<CandidateSolution> solutions) {
+		evaluate(solutions, null);
+	}
+
+	/**
+	 * evaluate the solutions as above, split across a fork join pool
+	 *
+	 * @param solutions the solutions to evaluate
+	 * @param pool      the pool the batch is split across, null to evaluate on the calling thread
+	 */
+	public void evaluate(List<CandidateSolution> solutions, ForkJoinPool pool) {
+		ArrayList<CandidateSolution> unevaluated = new ArrayList<>(solutions.size());
+		for (CandidateSolution solution : solutions) {
+			if (!solution.isEvaluated())
+				unevaluated.add(solution);
+		}
+		if (unevaluated.isEmpty())
+			return;
+
+		//with a cache the solutions are looked up one at a time, so they get the same values as outside a batch
+		if (cache != null) {
+			for (CandidateSolution solution : unevaluated) {
+				solution.setFitnessValues(evaluate(solution));
+			}
+			return;
+		}
+
+		double[][] decisionVariables = new double[unevaluated.size()][];
+		for (int i = 0; i < decisionVariables.length; i++) {
+			decisionVariables[i] = unevaluated.get(i).decisionVariableArray();
+		}
+		double[][] fitnesses = new double[unevaluated.size()][objectiveFunctions.length];
+		if (pool == null)
+			evaluate(decisionVariables, fitnesses);
+		else
+			evaluate(decisionVariables, fitnesses, pool);
+
+		for (int i = 0; i < fitnesses.length; i++) {
+			unevaluated.get(i).setFitnessValues(fitnesses[i]);
+		}
+	}
+
+	/**
+	 * evaluate rows from (inclusive) to to (exclusive) of a batch, one objective at a time over the rows
+	 */
+	private void evaluateRows(double[][] decisionVariables, double[][] fitnesses, int from, int to) {
+		double[][] rows = (from == 0 && to == decisionVariables.length) ? decisionVariables : Arrays.copyOfRange(decisionVariables, from, to);
+		double[] column = new double[rows.length];
+		for (int objective = 0; objective < objectiveFunctions.length; objective++) {
+			objectiveFunctions[objective].getFitnesses(rows, column);
+			for (int i = 0; i < column.length; i++) {
+				fitnesses[from + i][objective] = column[i];
+			}
+		}
+		evaluationCount.add(rows.length);
+	}
+
+	/**
+	 * a batch evaluation split in half until the pieces are no larger than the grain
+	 */
+	private class BatchEvaluation extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final double[][] decisionVariables;
+		private final double[][] fitnesses;
+		private final int from;
+		private final int to;
+		private final int grain;
+
+		BatchEvaluation(double[][] decisionVariables, double[][] fitnesses, int from, int to, int grain) {
+			this.decisionVariables = decisionVariables;
+			this.fitnesses = fitnesses;
+			this.from = from;
+			this.to = to;
+			this.grain = grain;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from <= grain) {
+				evaluateRows(decisionVariables, fitnesses, from, to);
+				return;
+			}
+			int middle = (from + to) >>> 1;
+			invokeAll(new BatchEvaluation(decisionVariables, fitnesses, from, middle, grain),
+					new BatchEvaluation(decisionVariables, fitnesses, middle, to, grain));
+		}
+	}
+
+	/**
+	 * look solutions up in a cache before evaluating them, see {@link EvaluationCache}.
+	 * set it before the search starts, so every solution is evaluated the same way
+	 *
+	 * @param cache the cache, null to evaluate every solution
+	 */
+	public void setCache(EvaluationCache cache) {
+		this.cache = cache;
+	}
+
+	/**
+	 * the cache solutions are looked up in, null if there is none
+	 */
+	public EvaluationCache getCache() {
+		return cache;
+	}
+
+	/**
+	 * the number of solutions that have been evaluated against this objective set, not counting those answered by the cache
+	 *
+	 * @return the evaluation count
+	 */
+	public long getEvaluationCount() {
+		return evaluationCount.sum();
+	}
+
 	/**
 	 * add in a new objective function which we want to optimise
 	 *
 	 * @param objective the objective function which we want to maximise for
 	 */
 	public void add(ObjectiveFunction objective) {
-		objectiveFunctions.add(objective);
+		add(objective.functionType, objective.asPrimitive());
+	}
+
+	/**
+	 * add in a new objective function over the decision variables as a primitive array
+	 *
+	 * @param functionType whether the objective is maximised or minimised
+	 * @param objective    the objective function
+	 */
+	public void add(ObjectiveFunction.Type functionType, PrimitiveObjectiveFunction objective) {
+		objectiveFunctions = Arrays.copyOf(objectiveFunctions, objectiveFunctions.length + 1);
+		objectiveFunctions[objectiveFunctions.length - 1] = objective;
+		directions = Arrays.copyOf(directions, directions.length + 1);
+		directions[directions.length - 1] = (functionType == ObjectiveFunction.Type.Minimisation) ? -1 : 1;
+	}
+
+	/**
+	 * the number of objectives in this set
+	 */
+	public int size() {
+		return objectiveFunctions.length;
+	}
+
+	/**
+	 * the direction of the ith objective
+	 *
+	 * @param i the index of the objective
+	 * @return +1 if the objective is maximised, -1 if it is minimised
+	 */
+	public double getDirection(int i) {
+		return directions[i];
+	}
+
+	/**
+	 * dominance comparison directly on two fitness vectors, 1 if base dominates, 0 if neither does, -1 if base is dominated.
+	 * gives the same result as checking the signs of fitnessDeltasRelatedToMinMax, but allocates nothing and
+	 * stops as soon as a better and a worse objective have both been seen
+	 *
+	 * @param baseFitnesses       the fitnesses of the solution from which we are doing the comparison
+	 * @param comparisonFitnesses the fitnesses of the solution that we are comparing to
+	 */
+	public int compare(double[] baseFitnesses, double[] comparisonFitnesses) {
+		boolean positiveDeltaExists = false;
+		boolean negativeDeltaExists = false;
+		for (int i = 0; i < directions.length; i++) {
+			double fitnessDelta = (baseFitnesses[i] - comparisonFitnesses[i]) * directions[i];
+			if (fitnessDelta > 0) {
+				if (negativeDeltaExists) return 0;
+				positiveDeltaExists = true;
+			} else if (fitnessDelta < 0) {
+				if (positiveDeltaExists) return 0;
+				negativeDeltaExists = true;
+			}
+		}
+		if (positiveDeltaExists) return 1;
+		if (negativeDeltaExists) return -1;
+		return 0;
 	}
 
 	/**
@@ -40,13 +329,15 @@ public class ObjectiveSet {
 	 */
 	public ArrayList<Double> fitnessDeltasRelatedToMinMax(CandidateSolution baseSolution, CandidateSolution comparisonSolution) {
 		ArrayList<Double> deltas = new ArrayList<>();
-		for (int i = 0; i < objectiveFunctions.size(); i++) {
-			if (objectiveFunctions.get(i).functionType == ObjectiveFunction.Type.Minimisation) {
+		double[] baseFitnesses = baseSolution.getFitnessValues();
+		double[] comparisonFitnesses = comparisonSolution.getFitnessValues();
+		for (int i = 0; i < objectiveFunctions.length; i++) {
+			if (directions[i] < 0) {
 				//if minimisation, we seek baseSolution smaller than comparisionSolution for positive instance
-				deltas.add(comparisonSolution.getFitnesses().get(i) - baseSolution.getFitnesses().get(i));
+				deltas.add(comparisonFitnesses[i] - baseFitnesses[i]);
 			} else {
 				//if maximisation, we seek baseSolution larger than comparisionSolution for positive instance
-				deltas.add(baseSolution.getFitnesses().get(i) - comparisonSolution.getFitnesses().get(i));
+				deltas.add(baseFitnesses[i] - comparisonFitnesses[i]);
 			}
 		}
 		return deltas;
@@ -0,0 +1,30 @@
+package com.parker.david;
+
+/**
+ * an objective function over the decision variables as a primitive array, usually written as a lambda such as
+ * {@code x -> x[0] * x[0]}. the objective set holds its objectives in an array of this type, so a small objective is
+ * a direct call the JIT can inline
+ */
+@FunctionalInterface
+public interface PrimitiveObjectiveFunction {
+
+	/**
+	 * get the fitness of a single solution
+	 *
+	 * @param decisionVariables the decision variables of the solution, must not be modified
+	 * @return the fitness
+	 */
+	double getFitness(double[] decisionVariables);
+
+	/**
+	 * get the fitness of a batch of solutions at once, by default each row is evaluated in turn
+	 *
+	 * @param decisionVariables the decision variables of one solution per row, must not be modified
+	 * @param fitnesses         filled with the fitness of each row
+	 */
+	default void getFitnesses(double[][] decisionVariables, double[] fitnesses) {
+		for (int i = 0; i < decisionVariables.length; i++) {
+			fitnesses[i] = getFitness(decisionVariables[i]);
+		}
+	}
+}
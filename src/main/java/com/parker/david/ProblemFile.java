@@ -0,0 +1,157 @@
+package com.parker.david;
+
+import com.parker.david.expression.Expression;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * a problem loaded from a text file, so problems can be switched without recompiling. each line is one of
+ * <pre>
+ * # a comment
+ * minimise   (x0 - 2)^2
+ * maximise   sin(x0) * x1
+ * constraint x0 + 2*x1 &lt;= 10
+ * </pre>
+ * expressions are over the decision variables x0..xn and are compiled once when the file is loaded, see
+ * {@link Expression#compile(String)}. a constraint compares two expressions with one of &lt;, &lt;=, &gt; or &gt;=,
+ * and is kept as a linear constraint when both sides are affine
+ */
+public class ProblemFile {
+
+	/**
+	 * the objectives of the problem
+	 */
+	private final ObjectiveSet objectives = new ObjectiveSet();
+
+	/**
+	 * the constraints of the problem
+	 */
+	private final ConstraintSet constraints = new ConstraintSet();
+
+	/**
+	 * one more than the highest variable index used by any objective or constraint
+	 */
+	private int variableCount = 0;
+
+	/**
+	 * constructor, see {@link #load(Path)}
+	 */
+	private ProblemFile() {
+	}
+
+	/**
+	 * load and compile a problem file
+	 *
+	 * @param path the problem file
+	 * @return the loaded problem
+	 * @throws IllegalArgumentException if a line can't be understood
+	 */
+	public static ProblemFile load(Path path) throws IOException {
+		return parse(Files.readAllLines(path));
+	}
+
+	/**
+	 * compile the lines of a problem file
+	 *
+	 * @param lines the lines of the problem
+	 * @return the compiled problem
+	 * @throws IllegalArgumentException if a line can't be understood
+	 */
+	public static ProblemFile parse(List<String> lines) {
+		ProblemFile problem = new ProblemFile();
+		for (int i = 0; i < lines.size(); i++) {
+			String line = lines.get(i).trim();
+			if (line.isEmpty() || line.startsWith("#"))
+				continue;
+			String[] keywordAndRest = line.split("\\s+", 2);
+			String keyword = keywordAndRest[0].toLowerCase();
+			String rest = (keywordAndRest.length > 1) ? keywordAndRest[1] : "";
+			try {
+				switch (keyword) {
+					case "minimise":
+					case "minimize":
+						problem.addObjective(ObjectiveFunction.Type.Minimisation, rest);
+						break;
+					case "maximise":
+					case "maximize":
+						problem.addObjective(ObjectiveFunction.Type.Maximisation, rest);
+						break;
+					case "constraint":
+						problem.addConstraint(rest);
+						break;
+					default:
+						throw new IllegalArgumentException("unknown keyword '" + keywordAndRest[0] + "'");
+				}
+			} catch (IllegalArgumentException e) {
+				throw new IllegalArgumentException("line " + (i + 1) + ": " + e.getMessage(), e);
+			}
+		}
+		if (problem.objectives.size() == 0)
+			throw new IllegalArgumentException("the problem has no objectives");
+		return problem;
+	}
+
+	private void addObjective(ObjectiveFunction.Type functionType, String source) {
+		Expression objective = compile(source);
+		objectives.add(functionType, objective);
+	}
+
+	/**
+	 * a constraint lhs op rhs is compiled as lhs - rhs op 0. if that is affine, weights . x + constant, it becomes the
+	 * linear constraint weights . x op -constant, which a compiled constraint set holds as a row of its matrix, otherwise
+	 * a constraint on the compiled function
+	 */
+	private void addConstraint(String source) {
+		String[] symbols = {"<=", ">=", "<", ">"};
+		Constraint.Operators[] operators = {Constraint.Operators.LESS_THAN_OR_EQUAL, Constraint.Operators.GREATER_THAN_OR_EQUAL,
+				Constraint.Operators.LESS_THAN, Constraint.Operators.GREATER_THAN};
+		for (int i = 0; i < symbols.length; i++) {
+			int at = source.indexOf(symbols[i]);
+			if (at >= 0) {
+				String left = source.substring(0, at);
+				String right = source.substring(at + symbols[i].length());
+				Expression constraint = compile("(" + left + ") - (" + right + ")");
+				double[] coefficients = constraint.affineCoefficients();
+				if (coefficients == null) {
+					constraints.add(new Constraint(constraint::evaluate, operators[i], 0));
+				} else {
+					int constant = coefficients.length - 1;
+					constraints.add(new Constraint(Arrays.copyOf(coefficients, constant), operators[i], -coefficients[constant]));
+				}
+				return;
+			}
+		}
+		throw new IllegalArgumentException("a constraint needs one of <, <=, > or >=: " + source);
+	}
+
+	private Expression compile(String source) {
+		Expression expression = Expression.compile(source);
+		variableCount = Math.max(variableCount, expression.getVariableCount());
+		return expression;
+	}
+
+	/**
+	 * the objectives of the problem, in the order they appear in the file
+	 */
+	public ObjectiveSet getObjectives() {
+		return objectives;
+	}
+
+	/**
+	 * the constraints of the problem
+	 */
+	public ConstraintSet getConstraints() {
+		return constraints;
+	}
+
+	/**
+	 * the number of decision variables the problem uses
+	 */
+	public int getVariableCount() {
+		return variableCount;
+	}
+}
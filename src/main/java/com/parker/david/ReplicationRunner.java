@@ -0,0 +1,99 @@
+package com.parker.david;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * runs independent replications of a search on an executor. every replication gets its own seed, derived from a
+ * master seed by its replication number, so any single replication can be rerun on its own. results are returned in
+ * replication order no matter which finishes first
+ */
+public class ReplicationRunner {
+
+	/**
+	 * a single replication of a search
+	 */
+	public interface Replication {
+		/**
+		 * run the replication
+		 *
+		 * @param replication the number of this replication, starting at 0
+		 * @param seed        the seed for all random numbers in this replication
+		 * @return a summary of the replication
+		 */
+		String run(int replication, long seed) throws Exception;
+	}
+
+	/**
+	 * the executor the replications are run on
+	 */
+	private final ExecutorService executor;
+
+	/**
+	 * the seed that all replication seeds are derived from
+	 */
+	private final long masterSeed;
+
+	/**
+	 * constructor
+	 *
+	 * @param executor   the executor the replications are run on, it is not shut down by the runner
+	 * @param masterSeed the seed that all replication seeds are derived from
+	 */
+	public ReplicationRunner(ExecutorService executor, long masterSeed) {
+		this.executor = executor;
+		this.masterSeed = masterSeed;
+	}
+
+	/**
+	 * the seeds for the first count replications of a master seed. the seed of a replication does not depend on how
+	 * many replications are run
+	 *
+	 * @param masterSeed the seed that all replication seeds are derived from
+	 * @param count      the number of seeds
+	 * @return the seed of each replication in order
+	 */
+	public static long[] replicationSeeds(long masterSeed, int count) {
+		SplittableRandom seedGenerator = new SplittableRandom(masterSeed);
+		long[] seeds = new long[count];
+		for (int i = 0; i < count; i++) {
+			seeds[i] = seedGenerator.nextLong();
+		}
+		return seeds;
+	}
+
+	/**
+	 * run a number of replications and wait for all of them to finish
+	 *
+	 * @param replications the number of replications to run
+	 * @param replication  the replication to run
+	 * @return the summary of each replication in replication order
+	 * @throws ExecutionException   if a replication throws, wrapping the first failure in replication order
+	 * @throws InterruptedException if interrupted while waiting
+	 */
+	public List<String> run(int replications, Replication replication) throws ExecutionException, InterruptedException {
+		long[] seeds = replicationSeeds(masterSeed, replications);
+		List<Future<String>> futures = new ArrayList<>();
+		for (int i = 0; i < replications; i++) {
+			final int replicationNumber = i;
+			futures.add(executor.submit(() -> replication.run(replicationNumber, seeds[replicationNumber])));
+		}
+
+		List<String> summaries = new ArrayList<>();
+		try {
+			for (Future<String> future : futures) {
+				summaries.add(future.get());
+			}
+		} finally {
+			//don't leave replications running if one of them failed
+			for (Future<String> future : futures) {
+				future.cancel(true);
+			}
+		}
+		return summaries;
+	}
+}
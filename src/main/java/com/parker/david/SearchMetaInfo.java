@@ -32,8 +32,11 @@ public class SearchMetaInfo {
 
 	/**
 	 * constructor
+	 *
+	 * @param initialTemperature the temperature the search starts at
 	 */
 	SearchMetaInfo(double initialTemperature) {
+		this.temperature = initialTemperature;
 		this.iterationsWithoutAddingToArchive = 0;
 		this.epoch = 1;
 	}
@@ -60,6 +63,15 @@ public class SearchMetaInfo {
 		++acceptances;
 	}
 
+	/**
+	 * record that a solution other than the one moved to was added to the archive during this iteration, such as by
+	 * a generator that archives good neighbours it didn't propose, resetting the counter on iterations without adding
+	 * to the archive. the iteration itself is counted by its acceptance or rejection
+	 */
+	public void solutionArchivedOutsideMove() {
+		iterationsWithoutAddingToArchive = 0;
+	}
+
 	/**
 	 * set a new temperature
 	 *
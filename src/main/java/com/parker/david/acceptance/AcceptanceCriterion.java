@@ -0,0 +1,36 @@
+package com.parker.david.acceptance;
+
+import com.parker.david.CandidateSolution;
+import com.parker.david.archive.SolutionArchive;
+
+/**
+ * decides whether the search moves to a new solution. implementations may keep state between calls, so each search
+ * should have its own instance
+ */
+public interface AcceptanceCriterion {
+
+	/**
+	 * boolean check to see if a solution is accepted or rejected
+	 *
+	 * @param archive     the archive
+	 * @param oldSolution the solution moving from
+	 * @param newSolution the solution we are moving to
+	 * @param temperature the current temperature
+	 * @return true if the move is accepted
+	 */
+	boolean isAccepted(SolutionArchive archive, CandidateSolution oldSolution, CandidateSolution newSolution, double temperature);
+
+	/**
+	 * whether the last call to isAccepted established that its new solution is dominated by the archive.
+	 * if so there is no need to offer it to the archive
+	 *
+	 * @return true if the last new solution is known to be dominated, false if it is not or it is unknown
+	 */
+	boolean newSolutionDominated();
+
+	/**
+	 * tell the criterion the archive was changed by something other than inserting the solutions it accepted,
+	 * so anything it remembers about the archive must be recomputed
+	 */
+	void archiveChanged();
+}
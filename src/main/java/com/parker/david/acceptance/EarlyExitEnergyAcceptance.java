@@ -0,0 +1,90 @@
+package com.parker.david.acceptance;
+
+import com.parker.david.AcceptanceComputer;
+import com.parker.david.CandidateSolution;
+import com.parker.david.archive.SolutionArchive;
+
+import java.util.SplittableRandom;
+
+/**
+ * the exact dominance based energy, but with the rejection threshold drawn before the energy is computed.
+ * the threshold gives the largest number of archived solutions that may dominate the new solution for the move to
+ * still be accepted, so counting stops as soon as that is passed and the move is rejected. at low temperatures, where
+ * most moves are rejected, most of the archive is never looked at.
+ * for the same random numbers this makes exactly the same decisions as {@link ExactEnergyAcceptance}
+ */
+public class EarlyExitEnergyAcceptance extends ExactEnergyAcceptance {
+
+	/**
+	 * constructor
+	 *
+	 * @param randomNumberGenerator the random number source for the rejection thresholds
+	 * @param archiveShared         true if other searches insert into the archive as well
+	 */
+	public EarlyExitEnergyAcceptance(SplittableRandom randomNumberGenerator, boolean archiveShared) {
+		super(randomNumberGenerator, archiveShared);
+	}
+
+	/**
+	 * constructor, for an archive only this search inserts into
+	 *
+	 * @param randomNumberGenerator the random number source for the rejection thresholds
+	 */
+	public EarlyExitEnergyAcceptance(SplittableRandom randomNumberGenerator) {
+		super(randomNumberGenerator);
+	}
+
+	/**
+	 * boolean check to see if a solution is accepted or rejected
+	 *
+	 * @param archive     the archive
+	 * @param oldSolution the solution moving from
+	 * @param newSolution the solution we are moving to
+	 * @param temperature the current temperature
+	 */
+	@Override
+	public boolean isAccepted(SolutionArchive archive, CandidateSolution oldSolution, CandidateSolution newSolution, double temperature) {
+		int oldSolutionDominatedBy = oldSolutionDominatedBy(archive, oldSolution);
+		int newComparedToOld = newSolution.compareTo(oldSolution);
+		int archiveSize = archive.size();
+
+		// stochastically generate our rejection threshold between 0 and 1
+		double rejectionThreshold = randomNumberGenerator.nextDouble();
+
+		// acceptance only gets less likely as more of the archive dominates the new solution,
+		// so binary search for the largest count that is still accepted, -1 if none is
+		int lowest = -1;
+		int highest = archiveSize;
+		while (lowest < highest) {
+			int middle = (lowest + highest + 1) >>> 1;
+			double deltaE = AcceptanceComputer.getEnergyDifference(archiveSize, oldSolutionDominatedBy, middle, newComparedToOld);
+			if (AcceptanceComputer.isAccepted(deltaE, temperature, rejectionThreshold))
+				lowest = middle;
+			else
+				highest = middle - 1;
+		}
+		int maxAcceptedDominatedBy = lowest;
+
+		if (maxAcceptedDominatedBy < 0) {
+			rememberNewSolution(newSolution, -1);
+			return false;
+		}
+
+		int newSolutionDominatedBy = archive.countDominating(newSolution, maxAcceptedDominatedBy);
+		if (newSolutionDominatedBy > maxAcceptedDominatedBy) {
+			// counting stopped early, we only know the new solution is dominated
+			rememberNewSolution(newSolution, -1);
+			return false;
+		}
+		rememberNewSolution(newSolution, newSolutionDominatedBy);
+		return true;
+	}
+
+	/**
+	 * name of the criterion, for the search output
+	 */
+	@Override
+	public String toString() {
+		return "exact energy with early exit";
+	}
+}
@@ -0,0 +1,125 @@
+package com.parker.david.acceptance;
+
+import com.parker.david.AcceptanceComputer;
+import com.parker.david.CandidateSolution;
+import com.parker.david.archive.SolutionArchive;
+
+import java.util.SplittableRandom;
+
+/**
+ * the exact dominance based energy, every new solution is compared against the whole archive.
+ * the number of archived solutions dominating the current solution is carried between iterations: it is unchanged by
+ * a rejection, and an accepted solution that is then inserted into the archive is dominated by nothing, so only the new
+ * solution needs comparing against the archive. this assumes the archive is only changed by inserting accepted solutions,
+ * when the archive is shared with other searches the counts are recomputed every iteration instead
+ */
+public class ExactEnergyAcceptance implements AcceptanceCriterion {
+
+	/**
+	 * a random number generator
+	 */
+	protected final SplittableRandom randomNumberGenerator;
+
+	/**
+	 * true if other searches insert into the archive too, so counts can't be carried between iterations
+	 */
+	private final boolean archiveShared;
+
+	/**
+	 * the old solution of the last call, and the number of archived solutions that dominate it
+	 */
+	private CandidateSolution currentSolution = null;
+	private int currentSolutionDominatedBy;
+
+	/**
+	 * the new solution of the last call, and the number of archived solutions that dominate it, -1 if not known exactly
+	 */
+	private CandidateSolution lastNewSolution = null;
+	private int lastNewSolutionDominatedBy = -1;
+
+	/**
+	 * constructor
+	 *
+	 * @param randomNumberGenerator the random number source for the rejection thresholds
+	 * @param archiveShared         true if other searches insert into the archive as well
+	 */
+	public ExactEnergyAcceptance(SplittableRandom randomNumberGenerator, boolean archiveShared) {
+		this.randomNumberGenerator = randomNumberGenerator;
+		this.archiveShared = archiveShared;
+	}
+
+	/**
+	 * constructor, for an archive only this search inserts into
+	 *
+	 * @param randomNumberGenerator the random number source for the rejection thresholds
+	 */
+	public ExactEnergyAcceptance(SplittableRandom randomNumberGenerator) {
+		this(randomNumberGenerator, false);
+	}
+
+	/**
+	 * boolean check to see if a solution is accepted or rejected
+	 *
+	 * @param archive     the archive
+	 * @param oldSolution the solution moving from
+	 * @param newSolution the solution we are moving to
+	 * @param temperature the current temperature
+	 */
+	@Override
+	public boolean isAccepted(SolutionArchive archive, CandidateSolution oldSolution, CandidateSolution newSolution, double temperature) {
+		int oldSolutionDominatedBy = oldSolutionDominatedBy(archive, oldSolution);
+		int newSolutionDominatedBy = archive.countDominating(newSolution);
+		rememberNewSolution(newSolution, newSolutionDominatedBy);
+		return AcceptanceComputer.isAccepted(archive.size(), oldSolution, oldSolutionDominatedBy, newSolution, newSolutionDominatedBy, temperature, randomNumberGenerator);
+	}
+
+	/**
+	 * the number of archived solutions dominating the old solution, reused from the last call where possible
+	 */
+	protected int oldSolutionDominatedBy(SolutionArchive archive, CandidateSolution oldSolution) {
+		if (oldSolution != currentSolution || archiveShared) {
+			currentSolution = oldSolution;
+			if (oldSolution == lastNewSolution && lastNewSolutionDominatedBy >= 0 && !archiveShared)
+				currentSolutionDominatedBy = lastNewSolutionDominatedBy;
+			else
+				currentSolutionDominatedBy = archive.countDominating(oldSolution);
+		}
+		return currentSolutionDominatedBy;
+	}
+
+	/**
+	 * remember the new solution of this call, so its count can be reused if the search moves to it
+	 *
+	 * @param newSolution            the solution we are moving to
+	 * @param newSolutionDominatedBy the exact number of archived solutions dominating it, -1 if not known
+	 */
+	protected void rememberNewSolution(CandidateSolution newSolution, int newSolutionDominatedBy) {
+		lastNewSolution = newSolution;
+		lastNewSolutionDominatedBy = newSolutionDominatedBy;
+	}
+
+	/**
+	 * whether the last new solution is known to be dominated by the archive
+	 */
+	@Override
+	public boolean newSolutionDominated() {
+		return lastNewSolutionDominatedBy > 0;
+	}
+
+	/**
+	 * forget the carried counts, they are recomputed on the next call
+	 */
+	@Override
+	public void archiveChanged() {
+		currentSolution = null;
+		lastNewSolution = null;
+	}
+
+	/**
+	 * name of the criterion, for the search output
+	 */
+	@Override
+	public String toString() {
+		return "exact energy";
+	}
+}
@@ -0,0 +1,150 @@
+package com.parker.david.acceptance;
+
+/**
+ * a cheap model of the objectives, predicting the fitnesses at a point from the k nearest of the most recently
+ * evaluated solutions, weighted by the inverse of their squared distance in decision space. alongside the prediction
+ * it gives the weighted standard deviation of the neighbours' fitnesses, as a measure of how far to trust it.
+ * <p>
+ * samples are held in a ring, so once it is full each new sample replaces the oldest. a prediction costs one pass over
+ * the held samples, which is only worth it when the objectives cost much more than that. distances are taken on the
+ * raw decision variables, so variables on very different scales should be rescaled in the problem first
+ */
+public class NearestNeighbourSurrogate {
+
+	/**
+	 * the decision variables and fitnesses of each held sample, rows are allocated as the ring first fills
+	 */
+	private final double[][] points;
+	private final double[][] fitnesses;
+
+	/**
+	 * the number of neighbours each prediction is made from
+	 */
+	private final int neighbours;
+
+	/**
+	 * the number of samples held, and the slot the next sample is written to
+	 */
+	private int count = 0;
+	private int next = 0;
+
+	/**
+	 * the nearest samples found for the current prediction, nearest first, reused between predictions
+	 */
+	private final int[] nearest;
+	private final double[] nearestDistances;
+
+	/**
+	 * constructor
+	 *
+	 * @param capacity   the most samples held, the oldest is replaced once it is full
+	 * @param neighbours the number of nearest samples each prediction is made from
+	 */
+	public NearestNeighbourSurrogate(int capacity, int neighbours) {
+		if (neighbours < 1 || capacity < neighbours)
+			throw new IllegalArgumentException("need at least 1 neighbour and room for as many samples, got " + neighbours + " neighbours and a capacity of " + capacity);
+		this.points = new double[capacity][];
+		this.fitnesses = new double[capacity][];
+		this.neighbours = neighbours;
+		this.nearest = new int[neighbours];
+		this.nearestDistances = new double[neighbours];
+	}
+
+	/**
+	 * add the real fitnesses of an evaluated point, copying both arrays
+	 *
+	 * @param point   the decision variables of the point
+	 * @param fitness the fitness for each objective at the point
+	 */
+	public void add(double[] point, double[] fitness) {
+		if (points[next] == null || points[next].length != point.length)
+			points[next] = new double[point.length];
+		if (fitnesses[next] == null || fitnesses[next].length != fitness.length)
+			fitnesses[next] = new double[fitness.length];
+		System.arraycopy(point, 0, points[next], 0, point.length);
+		System.arraycopy(fitness, 0, fitnesses[next], 0, fitness.length);
+		next = (next + 1) % points.length;
+		count = Math.min(count + 1, points.length);
+	}
+
+	/**
+	 * predict the fitnesses at a point from its nearest samples. samples at exactly the point outweigh every other,
+	 * so a point evaluated before is predicted as it was evaluated
+	 *
+	 * @param point      the decision variables of the point
+	 * @param prediction filled with the predicted fitness for each objective
+	 * @param spread     filled with the weighted standard deviation of the neighbours' fitnesses for each objective
+	 * @return false, leaving the arrays untouched, if fewer samples than neighbours are held yet
+	 */
+	public boolean predict(double[] point, double[] prediction, double[] spread) {
+		if (count < neighbours)
+			return false;
+
+		//insertion into the short sorted list of the nearest samples so far
+		int found = 0;
+		for (int s = 0; s < count; s++) {
+			double distance = squaredDistance(points[s], point);
+			if (found == neighbours && distance >= nearestDistances[found - 1])
+				continue;
+			int i = (found < neighbours) ? found++ : found - 1;
+			while (i > 0 && nearestDistances[i - 1] > distance) {
+				nearest[i] = nearest[i - 1];
+				nearestDistances[i] = nearestDistances[i - 1];
+				i--;
+			}
+			nearest[i] = s;
+			nearestDistances[i] = distance;
+		}
+
+		//only the exact matches count if there are any
+		int used = found;
+		boolean exact = nearestDistances[0] == 0;
+		if (exact) {
+			used = 1;
+			while (used < found && nearestDistances[used] == 0) used++;
+		}
+
+		for (int j = 0; j < prediction.length; j++) {
+			double totalWeight = 0;
+			double mean = 0;
+			for (int n = 0; n < used; n++) {
+				double weight = exact ? 1 : 1 / nearestDistances[n];
+				totalWeight += weight;
+				mean += weight * fitnesses[nearest[n]][j];
+			}
+			mean /= totalWeight;
+			double variance = 0;
+			for (int n = 0; n < used; n++) {
+				double weight = exact ? 1 : 1 / nearestDistances[n];
+				double deviation = fitnesses[nearest[n]][j] - mean;
+				variance += weight * deviation * deviation;
+			}
+			prediction[j] = mean;
+			spread[j] = Math.sqrt(variance / totalWeight);
+		}
+		return true;
+	}
+
+	private static double squaredDistance(double[] a, double[] b) {
+		double sum = 0;
+		for (int i = 0; i < b.length; i++) {
+			double difference = a[i] - b[i];
+			sum += difference * difference;
+		}
+		return sum;
+	}
+
+	/**
+	 * the number of samples held
+	 */
+	public int size() {
+		return count;
+	}
+
+	/**
+	 * the number of neighbours each prediction is made from
+	 */
+	public int getNeighbours() {
+		return neighbours;
+	}
+}
@@ -0,0 +1,180 @@
+package com.parker.david.acceptance;
+
+import com.parker.david.AcceptanceComputer;
+import com.parker.david.CandidateSolution;
+import com.parker.david.archive.SolutionArchive;
+
+import java.util.SplittableRandom;
+
+/**
+ * an estimate of the dominance based energy from a random sample of the archive, so the cost of each iteration does not
+ * grow with the size of the front. the same sampled members are compared against both the old and new solutions, and
+ * the share of them that dominate each is scaled up to the archive size. archives no larger than the sample are
+ * counted exactly.
+ * the standard error of every estimate is tracked, and optionally every so often the exact energy is computed as well
+ * so the real error of the estimates can be compared against it
+ */
+public class SampledEnergyAcceptance implements AcceptanceCriterion {
+
+	/**
+	 * a random number generator
+	 */
+	private final SplittableRandom randomNumberGenerator;
+
+	/**
+	 * the number of archive members compared against per iteration
+	 */
+	private final int sampleSize;
+
+	/**
+	 * compute the exact energy every this many estimates to measure the real error, 0 to never do so
+	 */
+	private final int validationInterval;
+
+	/**
+	 * whether a sampled member dominated the last new solution, which proves it is dominated by the archive
+	 */
+	private boolean lastNewSolutionDominated = false;
+
+	/**
+	 * statistics on the estimates made
+	 */
+	private long estimates = 0;
+	private double totalStandardError = 0;
+	private long validations = 0;
+	private double totalAbsoluteError = 0;
+	private double maxAbsoluteError = 0;
+
+	/**
+	 * constructor
+	 *
+	 * @param sampleSize            the number of archive members sampled per iteration, at least 2
+	 * @param validationInterval    compute the exact energy every this many estimates to measure the error, 0 to never do so
+	 * @param randomNumberGenerator the random number source for sampling and rejection thresholds
+	 */
+	public SampledEnergyAcceptance(int sampleSize, int validationInterval, SplittableRandom randomNumberGenerator) {
+		this.sampleSize = Math.max(2, sampleSize);
+		this.validationInterval = validationInterval;
+		this.randomNumberGenerator = randomNumberGenerator;
+	}
+
+	/**
+	 * constructor, without measuring the real error
+	 *
+	 * @param sampleSize            the number of archive members sampled per iteration
+	 * @param randomNumberGenerator the random number source for sampling and rejection thresholds
+	 */
+	public SampledEnergyAcceptance(int sampleSize, SplittableRandom randomNumberGenerator) {
+		this(sampleSize, 0, randomNumberGenerator);
+	}
+
+	/**
+	 * boolean check to see if a solution is accepted or rejected, using an estimate of the energy difference
+	 *
+	 * @param archive     the archive
+	 * @param oldSolution the solution moving from
+	 * @param newSolution the solution we are moving to
+	 * @param temperature the current temperature
+	 */
+	@Override
+	public boolean isAccepted(SolutionArchive archive, CandidateSolution oldSolution, CandidateSolution newSolution, double temperature) {
+		int archiveSize = archive.size();
+		int newComparedToOld = newSolution.compareTo(oldSolution);
+
+		// small archives are cheaper to count exactly than to sample
+		if (archiveSize <= sampleSize) {
+			int newSolutionDominatedBy = archive.countDominating(newSolution);
+			lastNewSolutionDominated = newSolutionDominatedBy > 0;
+			return AcceptanceComputer.isAccepted(archiveSize, oldSolution, archive.countDominating(oldSolution), newSolution, newSolutionDominatedBy, temperature, randomNumberGenerator);
+		}
+
+		// each sampled member contributes +1 if it dominates only the new solution, -1 if it dominates only the old one
+		int sum = 0;
+		int sumOfSquares = 0;
+		lastNewSolutionDominated = false;
+		for (int i = 0; i < sampleSize; i++) {
+			CandidateSolution member = archive.randomMember(randomNumberGenerator);
+			int difference = 0;
+			if (member.dominates(newSolution)) {
+				difference++;
+				lastNewSolutionDominated = true;
+			}
+			if (member.dominates(oldSolution)) difference--;
+			sum += difference;
+			sumOfSquares += difference * difference;
+		}
+
+		//scale the sampled share up to the whole archive, and add in the old and new solutions themselves
+		double meanDifference = (double) sum / sampleSize;
+		double deltaE = (archiveSize * meanDifference - newComparedToOld) / (archiveSize + 2);
+
+		//standard error of the estimate, from the sample variance of the differences
+		double variance = Math.max(0, ((double) sumOfSquares / sampleSize - meanDifference * meanDifference) * sampleSize / (sampleSize - 1.0));
+		totalStandardError += archiveSize * Math.sqrt(variance / sampleSize) / (archiveSize + 2);
+		estimates++;
+
+		if (validationInterval > 0 && estimates % validationInterval == 0) {
+			double exactDeltaE = AcceptanceComputer.getEnergyDifference(archiveSize, archive.countDominating(oldSolution), archive.countDominating(newSolution), newComparedToOld);
+			double absoluteError = Math.abs(deltaE - exactDeltaE);
+			totalAbsoluteError += absoluteError;
+			maxAbsoluteError = Math.max(maxAbsoluteError, absoluteError);
+			validations++;
+		}
+
+		// stochastically generate our rejection threshold between 0 and 1
+		double rejectionThreshold = randomNumberGenerator.nextDouble();
+		return AcceptanceComputer.isAccepted(deltaE, temperature, rejectionThreshold);
+	}
+
+	/**
+	 * whether a sampled member dominated the last new solution. a sample that misses every dominating member says nothing
+	 */
+	@Override
+	public boolean newSolutionDominated() {
+		return lastNewSolutionDominated;
+	}
+
+	/**
+	 * nothing about the archive is remembered between calls
+	 */
+	@Override
+	public void archiveChanged() {
+	}
+
+	/**
+	 * the number of iterations where the energy was estimated from a sample rather than counted exactly
+	 */
+	public long getEstimates() {
+		return estimates;
+	}
+
+	/**
+	 * the mean standard error of the estimated energy differences
+	 */
+	public double getMeanStandardError() {
+		return estimates == 0 ? 0 : totalStandardError / estimates;
+	}
+
+	/**
+	 * the mean absolute difference between estimated and exact energy differences, over the estimates that were validated
+	 */
+	public double getMeanAbsoluteError() {
+		return validations == 0 ? 0 : totalAbsoluteError / validations;
+	}
+
+	/**
+	 * the largest absolute difference between an estimated and exact energy difference
+	 */
+	public double getMaxAbsoluteError() {
+		return maxAbsoluteError;
+	}
+
+	/**
+	 * summary of the estimates, for the search output
+	 */
+	@Override
+	public String toString() {
+		return "sampled energy (sample size " + sampleSize + "): " + estimates + " estimates, mean standard error " + getMeanStandardError() +
+				(validations > 0 ? ", mean absolute error " + getMeanAbsoluteError() + " and max absolute error " + maxAbsoluteError + " over " + validations + " exact checks" : "");
+	}
+}
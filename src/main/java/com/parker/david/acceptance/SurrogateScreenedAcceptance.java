@@ -0,0 +1,177 @@
+package com.parker.david.acceptance;
+
+import com.parker.david.CandidateSolution;
+import com.parker.david.ObjectiveSet;
+import com.parker.david.archive.SolutionArchive;
+
+/**
+ * screens each new solution with a surrogate model before another criterion decides on it, for objectives that are
+ * expensive to evaluate. the surrogate predicts the new solution's fitnesses from solutions evaluated earlier, without
+ * evaluating it. if some archive member dominates the prediction even after every predicted fitness is moved margin
+ * standard deviations of the neighbours towards better, the move is rejected and the objectives are never called.
+ * otherwise the wrapped criterion decides as usual, which evaluates the new solution, and the surrogate learns its
+ * real fitnesses.
+ * <p>
+ * a screened move is rejected outright, where the wrapped criterion might have accepted a dominated move at a high
+ * temperature. to measure how often the screen is wrong, every auditInterval'th screened solution is evaluated anyway,
+ * still rejected, and counted as a false rejection if no archive member dominates its real fitnesses.
+ * evaluations are only saved where the search evaluates lazily, as {@link com.parker.david.Main#dbmosa} does, not
+ * where solutions are evaluated before acceptance is asked
+ */
+public class SurrogateScreenedAcceptance implements AcceptanceCriterion {
+
+	/**
+	 * the criterion deciding on the moves that aren't screened out
+	 */
+	private final AcceptanceCriterion criterion;
+
+	/**
+	 * the objectives, for the direction of each
+	 */
+	private final ObjectiveSet objectives;
+
+	/**
+	 * the model predicting fitnesses
+	 */
+	private final NearestNeighbourSurrogate surrogate;
+
+	/**
+	 * the number of neighbour standard deviations a prediction must be dominated by before a move is screened out
+	 */
+	private final double margin;
+
+	/**
+	 * evaluate every this many screened solutions to count false rejections, 0 to never do so
+	 */
+	private final int auditInterval;
+
+	/**
+	 * whether the last new solution was screened out, so the wrapped criterion didn't see it
+	 */
+	private boolean lastScreened = false;
+
+	/**
+	 * buffers for a prediction, reused between moves
+	 */
+	private double[] point = new double[0];
+	private final double[] prediction;
+	private final double[] spread;
+
+	/**
+	 * statistics on the screening
+	 */
+	private long moves = 0;
+	private long predictions = 0;
+	private long screened = 0;
+	private long audits = 0;
+	private long falseRejections = 0;
+
+	/**
+	 * constructor
+	 *
+	 * @param criterion     the criterion deciding on the moves that aren't screened out
+	 * @param objectives    the objectives being optimised
+	 * @param surrogate     the model predicting fitnesses, learning from every solution evaluated here
+	 * @param margin        the number of neighbour standard deviations a prediction must be dominated by to screen a move out
+	 * @param auditInterval evaluate every this many screened solutions to count false rejections, 0 to never do so
+	 */
+	public SurrogateScreenedAcceptance(AcceptanceCriterion criterion, ObjectiveSet objectives, NearestNeighbourSurrogate surrogate, double margin, int auditInterval) {
+		this.criterion = criterion;
+		this.objectives = objectives;
+		this.surrogate = surrogate;
+		this.margin = margin;
+		this.auditInterval = auditInterval;
+		this.prediction = new double[objectives.size()];
+		this.spread = new double[objectives.size()];
+	}
+
+	/**
+	 * reject the move if the surrogate is confident the new solution is dominated by the archive, otherwise ask the
+	 * wrapped criterion
+	 *
+	 * @param archive     the archive
+	 * @param oldSolution the solution moving from
+	 * @param newSolution the solution we are moving to
+	 * @param temperature the current temperature
+	 */
+	@Override
+	public boolean isAccepted(SolutionArchive archive, CandidateSolution oldSolution, CandidateSolution newSolution, double temperature) {
+		moves++;
+		int variableCount = newSolution.numberOfDecisionVariables();
+		if (point.length != variableCount)
+			point = new double[variableCount];
+		for (int i = 0; i < variableCount; i++) {
+			point[i] = newSolution.getIthDecisionVariable(i);
+		}
+
+		if (surrogate.predict(point, prediction, spread)) {
+			predictions++;
+			// the most optimistic fitnesses within the margin, each moved towards better
+			for (int j = 0; j < prediction.length; j++) {
+				prediction[j] += margin * spread[j] * objectives.getDirection(j);
+			}
+			if (archive.isDominated(prediction)) {
+				screened++;
+				lastScreened = true;
+				if (auditInterval > 0 && screened % auditInterval == 0) {
+					audits++;
+					double[] fitness = newSolution.getFitnessValues();
+					surrogate.add(point, fitness);
+					if (!archive.isDominated(fitness))
+						falseRejections++;
+				}
+				return false;
+			}
+		}
+
+		lastScreened = false;
+		boolean accepted = criterion.isAccepted(archive, oldSolution, newSolution, temperature);
+		surrogate.add(point, newSolution.getFitnessValues());
+		return accepted;
+	}
+
+	/**
+	 * a screened solution is rejected so is never offered to the archive, otherwise as the wrapped criterion knows
+	 */
+	@Override
+	public boolean newSolutionDominated() {
+		return !lastScreened && criterion.newSolutionDominated();
+	}
+
+	@Override
+	public void archiveChanged() {
+		criterion.archiveChanged();
+	}
+
+	/**
+	 * the number of moves screened out by the surrogate
+	 */
+	public long getScreened() {
+		return screened;
+	}
+
+	/**
+	 * the number of objective evaluations saved, the screened moves that weren't audited
+	 */
+	public long getEvaluationsSaved() {
+		return screened - audits;
+	}
+
+	/**
+	 * the share of audited screened moves whose real fitnesses no archive member dominates
+	 */
+	public double getFalseRejectionRate() {
+		return audits == 0 ? 0 : (double) falseRejections / audits;
+	}
+
+	/**
+	 * summary of the screening, for the search output
+	 */
+	@Override
+	public String toString() {
+		return "surrogate screened (" + surrogate.getNeighbours() + " neighbours of " + surrogate.size() + " samples, margin " + margin + "): " +
+				moves + " moves, " + predictions + " predicted, " + screened + " screened out, " + getEvaluationsSaved() + " evaluations saved" +
+				(audits > 0 ? ", " + falseRejections + " false rejections in " + audits + " audits (" + String.format("%.1f", 100 * getFalseRejectionRate()) + "%)" : "") +
+				", then " + criterion;
+	}
+}
@@ -0,0 +1,243 @@
+package com.parker.david.archive;
+
+import com.parker.david.CandidateSolution;
+import com.parker.david.ObjectiveSet;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+
+/**
+ * an archive for problems with exactly two objectives, kept sorted on the first objective.
+ * Objectives are converted to costs (smaller is better). Along a two objective front sorted by the first cost the second
+ * cost strictly decreases, so the only member that can dominate a new solution is its floor entry, and the members it
+ * dominates are a contiguous run directly after it. Insertion is therefore O(log n + number of members removed).
+ * Accepts and removes exactly the same solutions as {@link ListArchive}, objectives may not be NaN
+ */
+public class BiObjectiveTreeArchive implements SolutionArchive {
+
+	/**
+	 * a first cost as a key of the front. unlike a Double it can be refilled, so a lookup need not allocate one
+	 */
+	private static class FirstCost implements Comparable<FirstCost> {
+		double value;
+
+		FirstCost(double value) {
+			this.value = value;
+		}
+
+		@Override
+		public int compareTo(FirstCost other) {
+			return Double.compare(value, other.value);
+		}
+	}
+
+	/**
+	 * the front, keyed on the first cost. each bucket holds solutions with identical objective values but
+	 * different decision variables, since neither of those dominates the other
+	 */
+	private final TreeMap<FirstCost, ArrayList<CandidateSolution>> front = new TreeMap<>();
+
+	/**
+	 * the key isDominated looks up with, refilled for every query
+	 */
+	private final FirstCost lookup = new FirstCost(0);
+
+	/**
+	 * multiply a fitness by these to get a cost where smaller is better
+	 */
+	private final double firstCostDirection;
+	private final double secondCostDirection;
+
+	/**
+	 * every archived solution in no particular order, with the position of each, so a random member can be picked in
+	 * constant time and a member removed in constant time by moving the last one into its place
+	 */
+	private final ArrayList<CandidateSolution> members = new ArrayList<>();
+	private final IdentityHashMap<CandidateSolution, Integer> memberPositions = new IdentityHashMap<>();
+
+	/**
+	 * the same solutions indexed by decision variables, for finding duplicates without a search
+	 */
+	private final DecisionVariableIndex index = new DecisionVariableIndex();
+
+	/**
+	 * constructor
+	 *
+	 * @param objectives the objective set the archived solutions are evaluated against, must hold exactly two objectives
+	 */
+	public BiObjectiveTreeArchive(ObjectiveSet objectives) {
+		if (objectives.size() != 2)
+			throw new IllegalArgumentException("a bi-objective archive needs exactly 2 objectives, got " + objectives.size());
+		this.firstCostDirection = -objectives.getDirection(0);
+		this.secondCostDirection = -objectives.getDirection(1);
+	}
+
+	/**
+	 * the first cost of a solution, adding 0.0 turns -0.0 into 0.0 so both map to the same key
+	 */
+	private double firstCost(CandidateSolution solution) {
+		return solution.getFitnessValues()[0] * firstCostDirection + 0.0;
+	}
+
+	/**
+	 * the second cost of a solution
+	 */
+	private double secondCost(CandidateSolution solution) {
+		return solution.getFitnessValues()[1] * secondCostDirection;
+	}
+
+	/**
+	 * attempt to add the solution to the archive, see {@link SolutionArchive#addIfNotDominated(CandidateSolution)}
+	 *
+	 * @param solution the solution which we attempt to insert into the archive
+	 * @return true if solution was inserted into archive, false if it was dominated by or equal to a solution in the archive
+	 */
+	@Override
+	public boolean addIfNotDominated(CandidateSolution solution) {
+		//if solution is already in the archive don't add it again
+		if (index.contains(solution))
+			return false;
+
+		double first = firstCost(solution);
+		double second = secondCost(solution);
+
+		// the member with the largest first cost not above ours has the smallest second cost of all of those members,
+		// so it is the only one that could dominate the new solution
+		Map.Entry<FirstCost, ArrayList<CandidateSolution>> floor = front.floorEntry(new FirstCost(first));
+		if (floor != null) {
+			double floorSecond = secondCost(floor.getValue().get(0));
+			if (floorSecond < second || (floorSecond == second && floor.getKey().value < first))
+				return false;
+			if (floorSecond == second) {
+				// identical objective values, neither dominates the other
+				floor.getValue().add(solution);
+				addMember(solution);
+				return true;
+			}
+		}
+
+		// remove the run of members from our first cost onwards whose second cost is no better than ours
+		Iterator<ArrayList<CandidateSolution>> dominated = front.tailMap(new FirstCost(first), true).values().iterator();
+		while (dominated.hasNext()) {
+			ArrayList<CandidateSolution> bucket = dominated.next();
+			if (secondCost(bucket.get(0)) < second)
+				break;
+			for (CandidateSolution member : bucket) {
+				removeMember(member);
+			}
+			dominated.remove();
+		}
+
+		ArrayList<CandidateSolution> bucket = new ArrayList<>(1);
+		bucket.add(solution);
+		front.put(new FirstCost(first), bucket);
+		addMember(solution);
+		return true;
+	}
+
+	/**
+	 * track a solution that was added to the front
+	 */
+	private void addMember(CandidateSolution solution) {
+		memberPositions.put(solution, members.size());
+		members.add(solution);
+		index.add(solution);
+	}
+
+	/**
+	 * stop tracking a solution that was removed from the front
+	 */
+	private void removeMember(CandidateSolution solution) {
+		index.remove(solution);
+		int position = memberPositions.remove(solution);
+		CandidateSolution last = members.remove(members.size() - 1);
+		if (last != solution) {
+			members.set(position, last);
+			memberPositions.put(last, position);
+		}
+	}
+
+	/**
+	 * pick a solution from the archive uniformly at random
+	 */
+	@Override
+	public CandidateSolution randomMember(SplittableRandom random) {
+		if (members.isEmpty())
+			return null;
+		return members.get(random.nextInt(members.size()));
+	}
+
+	/**
+	 * whether any solution in the archive dominates the fitnesses. as on insertion, only the floor entry of the
+	 * first cost can, since it has the smallest second cost of every member no worse in the first
+	 */
+	@Override
+	public boolean isDominated(double[] fitnesses) {
+		double first = fitnesses[0] * firstCostDirection + 0.0;
+		double second = fitnesses[1] * secondCostDirection;
+		// floorEntry would wrap its answer in a new entry, so look the key up and then its bucket
+		lookup.value = first;
+		FirstCost floor = front.floorKey(lookup);
+		if (floor == null)
+			return false;
+		double floorSecond = secondCost(front.get(floor).get(0));
+		return floorSecond < second || (floorSecond == second && floor.value < first);
+	}
+
+	/**
+	 * count the solutions in the archive that dominate the given solution. these are the members up to and including
+	 * the floor entry whose second cost is no worse than ours, a contiguous run walking backwards from the floor
+	 */
+	@Override
+	public int countDominating(CandidateSolution solution) {
+		return countDominating(solution, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * count the solutions in the archive that dominate the given solution, stopping once the count passes the limit
+	 */
+	@Override
+	public int countDominating(CandidateSolution solution, int limit) {
+		double first = firstCost(solution);
+		double second = secondCost(solution);
+		int dominating = 0;
+		for (Map.Entry<FirstCost, ArrayList<CandidateSolution>> entry : front.headMap(new FirstCost(first), true).descendingMap().entrySet()) {
+			double entrySecond = secondCost(entry.getValue().get(0));
+			if (entrySecond > second)
+				break;
+			// identical objective values do not dominate
+			if (entry.getKey().value < first || entrySecond < second)
+				dominating += entry.getValue().size();
+			if (dominating > limit)
+				break;
+		}
+		return dominating;
+	}
+
+	/**
+	 * get the set of solutions in the archive, ordered by the first objective's cost
+	 *
+	 * @return a new list holding the archived solutions
+	 */
+	@Override
+	public List<CandidateSolution> getArchive() {
+		ArrayList<CandidateSolution> solutions = new ArrayList<>(members.size());
+		for (ArrayList<CandidateSolution> bucket : front.values()) {
+			solutions.addAll(bucket);
+		}
+		return solutions;
+	}
+
+	/**
+	 * the number of solutions in the archive
+	 */
+	@Override
+	public int size() {
+		return members.size();
+	}
+}
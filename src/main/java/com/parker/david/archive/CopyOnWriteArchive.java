@@ -0,0 +1,125 @@
+package com.parker.david.archive;
+
+import com.parker.david.CandidateSolution;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * an archive many search threads can share without locking.
+ * the archive is an immutable snapshot array published through an atomic reference. readers work on whatever snapshot
+ * is current and never block. an insertion builds a new snapshot from the current one and publishes it with a compare
+ * and set, if another thread published first the insertion is redone against the newer snapshot. every snapshot is
+ * derived from the one before it, so concurrent insertions can never leave a dominated member in the archive.
+ * Accepts and removes exactly the same solutions as {@link ListArchive} when used from one thread. each insertion copies
+ * the archive, so it suits fronts of moderate size, such as those an epsilon archive would keep
+ */
+public class CopyOnWriteArchive implements SolutionArchive {
+
+	/**
+	 * the current members of the archive, never modified once published
+	 */
+	private final AtomicReference<CandidateSolution[]> snapshot = new AtomicReference<>(new CandidateSolution[0]);
+
+	/**
+	 * attempt to add the solution to the archive, see {@link SolutionArchive#addIfNotDominated(CandidateSolution)}
+	 *
+	 * @param solution the solution which we attempt to insert into the archive
+	 * @return true if solution was inserted into archive, false if it was dominated by or equal to a solution in the archive
+	 */
+	@Override
+	public boolean addIfNotDominated(CandidateSolution solution) {
+		while (true) {
+			CandidateSolution[] current = snapshot.get();
+
+			//most solutions are rejected, so check that before copying anything
+			int dominated = 0;
+			for (CandidateSolution member : current) {
+				if (solution.isEqual(member))
+					return false;
+				int comparison = solution.compareTo(member);
+				if (comparison == -1)
+					return false;
+				if (comparison == 1)
+					dominated++;
+			}
+
+			CandidateSolution[] next = new CandidateSolution[current.length - dominated + 1];
+			int position = 0;
+			for (CandidateSolution member : current) {
+				if (dominated == 0 || !solution.dominates(member))
+					next[position++] = member;
+			}
+			next[position] = solution;
+
+			if (snapshot.compareAndSet(current, next))
+				return true;
+			//another thread changed the archive since we read it, try again against its version
+		}
+	}
+
+	/**
+	 * count the solutions in the archive that dominate the given solution
+	 */
+	@Override
+	public int countDominating(CandidateSolution solution) {
+		return countDominating(solution, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * count the solutions in the current snapshot that dominate the given solution, stopping once the count passes the limit
+	 */
+	@Override
+	public int countDominating(CandidateSolution solution, int limit) {
+		int dominating = 0;
+		for (CandidateSolution member : snapshot.get()) {
+			if (member.dominates(solution) && ++dominating > limit)
+				break;
+		}
+		return dominating;
+	}
+
+	/**
+	 * whether any solution in the current snapshot dominates the fitnesses, stopping at the first that does
+	 */
+	@Override
+	public boolean isDominated(double[] fitnesses) {
+		for (CandidateSolution member : snapshot.get()) {
+			if (member.dominates(fitnesses))
+				return true;
+		}
+		return false;
+	}
+
+	/**
+	 * pick a solution from the current snapshot uniformly at random
+	 */
+	@Override
+	public CandidateSolution randomMember(SplittableRandom random) {
+		CandidateSolution[] current = snapshot.get();
+		if (current.length == 0)
+			return null;
+		return current[random.nextInt(current.length)];
+	}
+
+	/**
+	 * get the set of solutions in the archive
+	 *
+	 * @return the current snapshot, unaffected by later insertions
+	 */
+	@Override
+	public List<CandidateSolution> getArchive() {
+		return Collections.unmodifiableList(Arrays.asList(snapshot.get()));
+	}
+
+	/**
+	 * the number of solutions in the current snapshot
+	 */
+	@Override
+	public int size() {
+		return snapshot.get().length;
+	}
+}
@@ -0,0 +1,57 @@
+package com.parker.david.archive;
+
+import com.parker.david.CandidateSolution;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+
+/**
+ * a hash index of archived solutions keyed on their decision variables, so an archive can tell in constant time
+ * whether a solution is already one of its members
+ */
+class DecisionVariableIndex {
+
+	/**
+	 * the archived solutions, grouped by their decision variable hash
+	 */
+	private final HashMap<Integer, ArrayList<CandidateSolution>> solutionsByHash = new HashMap<>();
+
+	/**
+	 * true if a solution with the same decision variables is in the index
+	 */
+	boolean contains(CandidateSolution solution) {
+		ArrayList<CandidateSolution> bucket = solutionsByHash.get(solution.decisionVariableHash());
+		if (bucket == null)
+			return false;
+		for (CandidateSolution member : bucket) {
+			if (solution.isEqual(member))
+				return true;
+		}
+		return false;
+	}
+
+	/**
+	 * add a solution to the index
+	 */
+	void add(CandidateSolution solution) {
+		solutionsByHash.computeIfAbsent(solution.decisionVariableHash(), hash -> new ArrayList<>(1)).add(solution);
+	}
+
+	/**
+	 * remove a solution from the index
+	 */
+	void remove(CandidateSolution solution) {
+		int hash = solution.decisionVariableHash();
+		ArrayList<CandidateSolution> bucket = solutionsByHash.get(hash);
+		if (bucket == null)
+			return;
+		for (int i = 0; i < bucket.size(); i++) {
+			if (bucket.get(i) == solution) {
+				bucket.remove(i);
+				break;
+			}
+		}
+		if (bucket.isEmpty())
+			solutionsByHash.remove(hash);
+	}
+}
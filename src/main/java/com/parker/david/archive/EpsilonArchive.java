@@ -0,0 +1,281 @@
+package com.parker.david.archive;
+
+import com.parker.david.CandidateSolution;
+import com.parker.david.ObjectiveSet;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * an epsilon dominance archive, bounded in size by construction.
+ * Objectives are converted to costs (smaller is better) and objective space is divided into boxes, epsilon wide in each
+ * objective. at most one solution is kept per box, and a box is only occupied if no other occupied box dominates it.
+ * when two solutions fall in the same box the dominating one is kept, or if neither dominates, the one closest to the
+ * best corner of the box. boxes are found through a hash map, so the work per insertion is proportional to the number
+ * of occupied boxes, which the epsilons bound
+ */
+public class EpsilonArchive implements SolutionArchive {
+
+	/**
+	 * an occupied box, its grid coordinates and the solution representing it
+	 */
+	private static class Box {
+		final long[] coordinates;
+		CandidateSolution solution;
+		int position;
+
+		Box(long[] coordinates, CandidateSolution solution) {
+			this.coordinates = coordinates;
+			this.solution = solution;
+		}
+	}
+
+	/**
+	 * the grid coordinates of a box, usable as a hash key
+	 */
+	private static class BoxKey {
+		final long[] coordinates;
+		final int hash;
+
+		BoxKey(long[] coordinates) {
+			this.coordinates = coordinates;
+			this.hash = Arrays.hashCode(coordinates);
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			return other instanceof BoxKey && Arrays.equals(coordinates, ((BoxKey) other).coordinates);
+		}
+	}
+
+	/**
+	 * multiply a fitness by these to get a cost where smaller is better
+	 */
+	private final double[] costDirections;
+
+	/**
+	 * the width of a box in each objective
+	 */
+	private final double[] epsilons;
+
+	/**
+	 * the occupied boxes by their coordinates
+	 */
+	private final HashMap<BoxKey, Box> boxes = new HashMap<>();
+
+	/**
+	 * the occupied boxes in no particular order, each box knows its position so it can be removed in constant time
+	 */
+	private final ArrayList<Box> occupied = new ArrayList<>();
+
+	/**
+	 * the box of the last isDominated query, reused between queries
+	 */
+	private final long[] queryBox;
+
+	/**
+	 * constructor
+	 *
+	 * @param objectives the objective set the archived solutions are evaluated against
+	 * @param epsilons   the width of a box for each objective, in the units of that objective
+	 */
+	public EpsilonArchive(ObjectiveSet objectives, double[] epsilons) {
+		if (epsilons.length != objectives.size())
+			throw new IllegalArgumentException("need one epsilon per objective, got " + epsilons.length + " for " + objectives.size() + " objectives");
+		this.costDirections = new double[objectives.size()];
+		for (int i = 0; i < costDirections.length; i++) {
+			if (!(epsilons[i] > 0))
+				throw new IllegalArgumentException("epsilons must be positive, got " + epsilons[i]);
+			costDirections[i] = -objectives.getDirection(i);
+		}
+		this.epsilons = epsilons.clone();
+		this.queryBox = new long[epsilons.length];
+	}
+
+	/**
+	 * the grid coordinates of the box a solution falls in
+	 */
+	private long[] boxOf(CandidateSolution solution) {
+		double[] fitnesses = solution.getFitnessValues();
+		long[] coordinates = new long[fitnesses.length];
+		for (int i = 0; i < coordinates.length; i++) {
+			coordinates[i] = (long) Math.floor(fitnesses[i] * costDirections[i] / epsilons[i]);
+		}
+		return coordinates;
+	}
+
+	/**
+	 * the squared distance, in box widths, from a solution to the best corner of its box
+	 */
+	private double distanceToCorner(CandidateSolution solution, long[] coordinates) {
+		double[] fitnesses = solution.getFitnessValues();
+		double distance = 0;
+		for (int i = 0; i < coordinates.length; i++) {
+			double offset = fitnesses[i] * costDirections[i] / epsilons[i] - coordinates[i];
+			distance += offset * offset;
+		}
+		return distance;
+	}
+
+	/**
+	 * true if box a dominates box b, a is no worse in every coordinate and they are not the same box
+	 */
+	private static boolean boxDominates(long[] a, long[] b) {
+		boolean strictlyBetter = false;
+		for (int i = 0; i < a.length; i++) {
+			if (a[i] > b[i])
+				return false;
+			if (a[i] < b[i])
+				strictlyBetter = true;
+		}
+		return strictlyBetter;
+	}
+
+	/**
+	 * attempt to add the solution to the archive. it is rejected if its box is dominated by an occupied box, or if it
+	 * loses to the solution already in its box. otherwise it takes over its box and every box it dominates is emptied
+	 *
+	 * @param solution the solution which we attempt to insert into the archive
+	 * @return true if solution was inserted into archive, false if it was rejected
+	 */
+	@Override
+	public boolean addIfNotDominated(CandidateSolution solution) {
+		long[] coordinates = boxOf(solution);
+		BoxKey key = new BoxKey(coordinates);
+
+		Box box = boxes.get(key);
+		if (box != null) {
+			// the box is already occupied, so no other occupied box dominates it and it dominates none of them
+			if (solution.isEqual(box.solution))
+				return false;
+			int comparison = solution.compareTo(box.solution);
+			if (comparison == 1 || (comparison == 0 && distanceToCorner(solution, coordinates) < distanceToCorner(box.solution, coordinates))) {
+				box.solution = solution;
+				return true;
+			}
+			return false;
+		}
+
+		for (Box other : occupied) {
+			if (boxDominates(other.coordinates, coordinates))
+				return false;
+		}
+
+		// remove every box dominated by the new one
+		Iterator<Box> others = boxes.values().iterator();
+		while (others.hasNext()) {
+			Box other = others.next();
+			if (boxDominates(coordinates, other.coordinates)) {
+				others.remove();
+				removeOccupied(other);
+			}
+		}
+
+		box = new Box(coordinates, solution);
+		boxes.put(key, box);
+		box.position = occupied.size();
+		occupied.add(box);
+		return true;
+	}
+
+	/**
+	 * remove a box from the occupied list by moving the last box into its place
+	 */
+	private void removeOccupied(Box box) {
+		Box last = occupied.remove(occupied.size() - 1);
+		if (last != box) {
+			occupied.set(box.position, last);
+			last.position = box.position;
+		}
+	}
+
+	/**
+	 * count the solutions in the archive that dominate the given solution
+	 */
+	@Override
+	public int countDominating(CandidateSolution solution) {
+		return countDominating(solution, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * count the solutions in the archive that dominate the given solution, stopping once the count passes the limit
+	 */
+	@Override
+	public int countDominating(CandidateSolution solution, int limit) {
+		int dominating = 0;
+		for (Box box : occupied) {
+			if (box.solution.dominates(solution) && ++dominating > limit)
+				break;
+		}
+		return dominating;
+	}
+
+	/**
+	 * whether any solution in the archive dominates the fitnesses, stopping at the first that does. a solution in a
+	 * box worse than the fitnesses' box in any objective is worse in that objective, so only the boxes no worse in
+	 * every objective have their solution compared
+	 */
+	@Override
+	public boolean isDominated(double[] fitnesses) {
+		for (int i = 0; i < queryBox.length; i++) {
+			queryBox[i] = (long) Math.floor(fitnesses[i] * costDirections[i] / epsilons[i]);
+		}
+		for (Box box : occupied) {
+			if (noWorse(box.coordinates, queryBox) && box.solution.dominates(fitnesses))
+				return true;
+		}
+		return false;
+	}
+
+	/**
+	 * true if box a is no worse than box b in every coordinate
+	 */
+	private static boolean noWorse(long[] a, long[] b) {
+		for (int i = 0; i < a.length; i++) {
+			if (a[i] > b[i])
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * pick a solution from the archive uniformly at random
+	 */
+	@Override
+	public CandidateSolution randomMember(SplittableRandom random) {
+		if (occupied.isEmpty())
+			return null;
+		return occupied.get(random.nextInt(occupied.size())).solution;
+	}
+
+	/**
+	 * get the set of solutions in the archive
+	 *
+	 * @return a new list holding the archived solutions
+	 */
+	@Override
+	public List<CandidateSolution> getArchive() {
+		ArrayList<CandidateSolution> solutions = new ArrayList<>(occupied.size());
+		for (Box box : occupied) {
+			solutions.add(box.solution);
+		}
+		return solutions;
+	}
+
+	/**
+	 * the number of solutions in the archive
+	 */
+	@Override
+	public int size() {
+		return occupied.size();
+	}
+}
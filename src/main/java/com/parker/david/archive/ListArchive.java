@@ -0,0 +1,123 @@
+package com.parker.david.archive;
+
+import com.parker.david.CandidateSolution;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * the original solution archive, a plain list that is scanned in full on every insertion
+ */
+public class ListArchive implements SolutionArchive {
+
+	/**
+	 * the internal list of optimal solutions
+	 */
+	private ArrayList<CandidateSolution> mostOptimalSolutions = new ArrayList<>();
+
+	/**
+	 * the same solutions indexed by decision variables, for finding duplicates without a scan
+	 */
+	private final DecisionVariableIndex index = new DecisionVariableIndex();
+
+	/**
+	 * get the set of solutions in the archive
+	 *
+	 * @return the array list of solutions
+	 */
+	@Override
+	public List<CandidateSolution> getArchive() {
+		return mostOptimalSolutions;
+	}
+
+	/**
+	 * the number of solutions in the archive
+	 */
+	@Override
+	public int size() {
+		return mostOptimalSolutions.size();
+	}
+
+	/**
+	 * count the solutions in the archive that dominate the given solution
+	 */
+	@Override
+	public int countDominating(CandidateSolution solution) {
+		return countDominating(solution, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * count the solutions in the archive that dominate the given solution, stopping once the count passes the limit
+	 */
+	@Override
+	public int countDominating(CandidateSolution solution, int limit) {
+		int dominating = 0;
+		for (CandidateSolution bestSolution : mostOptimalSolutions) {
+			if (bestSolution.dominates(solution) && ++dominating > limit)
+				break;
+		}
+		return dominating;
+	}
+
+	/**
+	 * whether any solution in the archive dominates the fitnesses, stopping at the first that does
+	 */
+	@Override
+	public boolean isDominated(double[] fitnesses) {
+		//indexed rather than iterated, so a query allocates nothing
+		for (int i = 0; i < mostOptimalSolutions.size(); i++) {
+			if (mostOptimalSolutions.get(i).dominates(fitnesses))
+				return true;
+		}
+		return false;
+	}
+
+	/**
+	 * pick a solution from the archive uniformly at random
+	 */
+	@Override
+	public CandidateSolution randomMember(SplittableRandom random) {
+		if (mostOptimalSolutions.isEmpty())
+			return null;
+		return mostOptimalSolutions.get(random.nextInt(mostOptimalSolutions.size()));
+	}
+
+	/**
+	 * attempt to add the solution to the archive. If the solution is not dominated by a solution in the archive,
+	 * it gets added. When a new solution is added, any solutions that are dominated by the new solution are removed
+	 * from the archive. Thus the archive is the set of non-dominated solutions. the Pareto Optimal set
+	 *
+	 * @param solution the solution which we attempt to insert into the archive
+	 * @return true if solution was inserted into archive, false if it was dominated by a solution in the archive
+	 */
+	@Override
+	public boolean addIfNotDominated(CandidateSolution solution) {
+		//if solution is already in the archive don't add it again
+		if (index.contains(solution))
+			return false;
+
+		// if the solution is dominated by anything in the archive, do nothing
+		for (CandidateSolution bestSolution : mostOptimalSolutions) {
+			if (bestSolution.dominates(solution))
+				//solution is not added to archive because it is dominated, return false
+				return false;
+		}
+
+		// remove any solutions from the archive that are dominated by the new solution
+		mostOptimalSolutions.removeIf(bestSolution -> {
+			if (!solution.dominates(bestSolution))
+				return false;
+			index.remove(bestSolution);
+			return true;
+		});
+
+		// add the new solution to the archive
+		mostOptimalSolutions.add(solution);
+		index.add(solution);
+
+		//a solution was added to the archive, return true
+		return true;
+	}
+
+}
@@ -0,0 +1,495 @@
+package com.parker.david.archive;
+
+import com.parker.david.CandidateSolution;
+import com.parker.david.ObjectiveSet;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * an archive for any number of objectives, kept in an ND-tree.
+ * Objectives are converted to costs (smaller is better), and every node of the tree stores the ideal point (best cost
+ * per objective) and nadir point (worst cost per objective) of the solutions below it. A new solution is only compared
+ * against the solutions of nodes whose box it could interact with: if the nadir of a node is better than the solution,
+ * everything in the node dominates it, if the solution is better than the ideal point it dominates everything in the
+ * node, and if it is neither inside nor on the good or bad side of the box, nothing in the node is comparable to it.
+ * Accepts and removes exactly the same solutions as {@link ListArchive}, objectives may not be NaN
+ */
+public class NDTreeArchive implements SolutionArchive {
+
+	/**
+	 * the default number of solutions a leaf may hold before it is split in two
+	 */
+	private static final int defaultMaxLeafSize = 20;
+
+	/**
+	 * a solution together with its cost vector
+	 */
+	private static class Member {
+		final CandidateSolution solution;
+		final double[] costs;
+
+		Member(CandidateSolution solution, double[] costs) {
+			this.solution = solution;
+			this.costs = costs;
+		}
+	}
+
+	/**
+	 * a node of the tree. a leaf holds members, an internal node holds at least two children
+	 */
+	private static class Node {
+		double[] ideal;
+		double[] nadir;
+		ArrayList<Member> members;
+		ArrayList<Node> children;
+		int size;
+
+		Node(Member member) {
+			ideal = member.costs.clone();
+			nadir = member.costs.clone();
+			members = new ArrayList<>();
+			members.add(member);
+			size = 1;
+		}
+
+		Node(ArrayList<Member> members) {
+			this.members = members;
+			recompute();
+		}
+
+		boolean isLeaf() {
+			return members != null;
+		}
+
+		boolean isEmpty() {
+			return isLeaf() ? members.isEmpty() : children.isEmpty();
+		}
+
+		/**
+		 * reset the size, ideal and nadir points from the contents of the node, needed after anything is removed
+		 */
+		void recompute() {
+			if (isEmpty()) {
+				size = 0;
+				return;
+			}
+			if (isLeaf()) {
+				size = members.size();
+				ideal = members.get(0).costs.clone();
+				nadir = members.get(0).costs.clone();
+				for (Member member : members) {
+					expandBounds(member.costs);
+				}
+			} else {
+				size = 0;
+				ideal = children.get(0).ideal.clone();
+				nadir = children.get(0).nadir.clone();
+				for (Node child : children) {
+					size += child.size;
+					expandBounds(child.ideal);
+					expandBounds(child.nadir);
+				}
+			}
+		}
+
+		/**
+		 * grow the ideal and nadir points so they cover the given cost vector
+		 */
+		void expandBounds(double[] costs) {
+			for (int i = 0; i < costs.length; i++) {
+				ideal[i] = Math.min(ideal[i], costs[i]);
+				nadir[i] = Math.max(nadir[i], costs[i]);
+			}
+		}
+	}
+
+	/**
+	 * multiply a fitness by these to get a cost where smaller is better
+	 */
+	private final double[] costDirections;
+
+	/**
+	 * the number of solutions a leaf may hold before it is split
+	 */
+	private final int maxLeafSize;
+
+	/**
+	 * the root of the tree, null while the archive is empty
+	 */
+	private Node root = null;
+
+	/**
+	 * the number of solutions in the archive
+	 */
+	private int size = 0;
+
+	/**
+	 * the same solutions indexed by decision variables, for finding duplicates without a search
+	 */
+	private final DecisionVariableIndex index = new DecisionVariableIndex();
+
+	/**
+	 * the cost vector of the last isDominated query, reused between queries
+	 */
+	private final double[] queryCosts;
+
+	/**
+	 * constructor
+	 *
+	 * @param objectives  the objective set the archived solutions are evaluated against
+	 * @param maxLeafSize the number of solutions a leaf may hold before it is split
+	 */
+	public NDTreeArchive(ObjectiveSet objectives, int maxLeafSize) {
+		this.costDirections = new double[objectives.size()];
+		for (int i = 0; i < costDirections.length; i++) {
+			costDirections[i] = -objectives.getDirection(i);
+		}
+		this.maxLeafSize = Math.max(2, maxLeafSize);
+		this.queryCosts = new double[costDirections.length];
+	}
+
+	/**
+	 * constructor, using the default leaf size
+	 *
+	 * @param objectives the objective set the archived solutions are evaluated against
+	 */
+	public NDTreeArchive(ObjectiveSet objectives) {
+		this(objectives, defaultMaxLeafSize);
+	}
+
+	/**
+	 * the cost vector of a solution, smaller is better for every objective
+	 */
+	private double[] costsOf(CandidateSolution solution) {
+		double[] fitnesses = solution.getFitnessValues();
+		double[] costs = new double[costDirections.length];
+		for (int i = 0; i < costs.length; i++) {
+			costs[i] = fitnesses[i] * costDirections[i];
+		}
+		return costs;
+	}
+
+	/**
+	 * attempt to add the solution to the archive, see {@link SolutionArchive#addIfNotDominated(CandidateSolution)}
+	 *
+	 * @param solution the solution which we attempt to insert into the archive
+	 * @return true if solution was inserted into archive, false if it was dominated by or equal to a solution in the archive
+	 */
+	@Override
+	public boolean addIfNotDominated(CandidateSolution solution) {
+		//if solution is already in the archive don't add it again
+		if (index.contains(solution))
+			return false;
+
+		Member member = new Member(solution, costsOf(solution));
+
+		if (root == null) {
+			root = new Node(member);
+			size = 1;
+			index.add(solution);
+			return true;
+		}
+
+		// a rejected solution cannot dominate anything in a valid archive, so no member is removed before a rejection
+		if (update(root, member))
+			return false;
+
+		if (root.isEmpty())
+			root = new Node(member);
+		else
+			insert(root, member);
+		size++;
+		index.add(solution);
+		return true;
+	}
+
+	/**
+	 * check the new member against a node, removing anything it dominates
+	 *
+	 * @return true if the new member is dominated by a solution in the node
+	 */
+	private boolean update(Node node, Member member) {
+		double[] costs = member.costs;
+
+		// every solution in the node is at least as good as the nadir, which is at least as good as the new member
+		if (weaklyDominates(node.nadir, costs) && !sameCosts(node.nadir, costs))
+			return true;
+
+		// the new member can neither be dominated by nor dominate anything in this node
+		if (!weaklyDominates(node.ideal, costs) && !weaklyDominates(costs, node.nadir))
+			return false;
+
+		// the new member is better than the ideal, so it dominates everything in the node
+		if (weaklyDominates(costs, node.ideal) && !sameCosts(costs, node.ideal)) {
+			size -= node.size;
+			removeFromIndex(node);
+			node.members = new ArrayList<>();
+			node.children = null;
+			node.size = 0;
+			return false;
+		}
+
+		int sizeBefore = size;
+		if (node.isLeaf()) {
+			Iterator<Member> members = node.members.iterator();
+			while (members.hasNext()) {
+				CandidateSolution existing = members.next().solution;
+				int comparison = member.solution.compareTo(existing);
+				if (comparison == -1)
+					return true;
+				if (comparison == 1) {
+					members.remove();
+					index.remove(existing);
+					size--;
+				}
+			}
+		} else {
+			for (Node child : node.children) {
+				if (update(child, member))
+					return true;
+			}
+			node.children.removeIf(Node::isEmpty);
+			if (node.children.size() == 1) {
+				// collapse a node with a single child into that child
+				Node child = node.children.get(0);
+				node.members = child.members;
+				node.children = child.children;
+				node.size = child.size;
+			}
+		}
+		if (size != sizeBefore)
+			node.recompute();
+		return false;
+	}
+
+	/**
+	 * remove every solution below a node from the duplicate index
+	 */
+	private void removeFromIndex(Node node) {
+		if (node.isLeaf()) {
+			for (Member member : node.members) {
+				index.remove(member.solution);
+			}
+		} else {
+			for (Node child : node.children) {
+				removeFromIndex(child);
+			}
+		}
+	}
+
+	/**
+	 * add the member to the leaf whose box centre is closest to it, splitting the leaf if it grows too large
+	 */
+	private void insert(Node node, Member member) {
+		while (!node.isLeaf()) {
+			node.expandBounds(member.costs);
+			node.size++;
+			Node closest = null;
+			double closestDistance = Double.POSITIVE_INFINITY;
+			for (Node child : node.children) {
+				double distance = 0;
+				for (int i = 0; i < member.costs.length; i++) {
+					double offset = member.costs[i] - (child.ideal[i] + child.nadir[i]) / 2;
+					distance += offset * offset;
+				}
+				if (closest == null || distance < closestDistance) {
+					closest = child;
+					closestDistance = distance;
+				}
+			}
+			node = closest;
+		}
+		node.expandBounds(member.costs);
+		node.members.add(member);
+		node.size++;
+		if (node.members.size() > maxLeafSize)
+			split(node);
+	}
+
+	/**
+	 * turn a full leaf into an internal node with two leaves, dividing its members at the median of the objective
+	 * with the widest range
+	 */
+	private void split(Node leaf) {
+		int widest = 0;
+		for (int i = 1; i < leaf.ideal.length; i++) {
+			if (leaf.nadir[i] - leaf.ideal[i] > leaf.nadir[widest] - leaf.ideal[widest])
+				widest = i;
+		}
+		final int objective = widest;
+		leaf.members.sort(Comparator.comparingDouble(member -> member.costs[objective]));
+
+		int half = leaf.members.size() / 2;
+		ArrayList<Node> children = new ArrayList<>(2);
+		children.add(new Node(new ArrayList<>(leaf.members.subList(0, half))));
+		children.add(new Node(new ArrayList<>(leaf.members.subList(half, leaf.members.size()))));
+		leaf.members = null;
+		leaf.children = children;
+	}
+
+	/**
+	 * count the solutions in the archive that dominate the given solution
+	 */
+	@Override
+	public int countDominating(CandidateSolution solution) {
+		return countDominating(solution, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * count the solutions in the archive that dominate the given solution, stopping once the count passes the limit
+	 */
+	@Override
+	public int countDominating(CandidateSolution solution, int limit) {
+		if (root == null)
+			return 0;
+		return countDominating(root, solution, costsOf(solution), limit);
+	}
+
+	/**
+	 * count the solutions below a node that dominate the given solution, stopping once the count passes the limit
+	 */
+	private static int countDominating(Node node, CandidateSolution solution, double[] costs, int limit) {
+		// nothing in the node is at least as good as the solution
+		if (!weaklyDominates(node.ideal, costs))
+			return 0;
+		// everything in the node is at least as good as the nadir, which is better than the solution
+		if (weaklyDominates(node.nadir, costs) && !sameCosts(node.nadir, costs))
+			return node.size;
+
+		int dominating = 0;
+		if (node.isLeaf()) {
+			for (Member member : node.members) {
+				if (member.solution.dominates(solution) && ++dominating > limit)
+					break;
+			}
+		} else {
+			for (Node child : node.children) {
+				dominating += countDominating(child, solution, costs, limit - dominating);
+				if (dominating > limit)
+					break;
+			}
+		}
+		return dominating;
+	}
+
+	/**
+	 * whether any solution in the archive dominates the fitnesses, only descending into nodes whose ideal point is
+	 * at least as good as them, and stopping at the first dominating solution
+	 */
+	@Override
+	public boolean isDominated(double[] fitnesses) {
+		if (root == null)
+			return false;
+		for (int i = 0; i < queryCosts.length; i++) {
+			queryCosts[i] = fitnesses[i] * costDirections[i];
+		}
+		return isDominated(root, queryCosts);
+	}
+
+	/**
+	 * whether any solution below a node dominates the cost vector
+	 */
+	private static boolean isDominated(Node node, double[] costs) {
+		if (!weaklyDominates(node.ideal, costs))
+			return false;
+		if (weaklyDominates(node.nadir, costs) && !sameCosts(node.nadir, costs))
+			return true;
+		//indexed rather than iterated, the recursion stops iterators being optimised away
+		if (node.isLeaf()) {
+			for (int i = 0; i < node.members.size(); i++) {
+				double[] memberCosts = node.members.get(i).costs;
+				if (weaklyDominates(memberCosts, costs) && !sameCosts(memberCosts, costs))
+					return true;
+			}
+		} else {
+			for (int i = 0; i < node.children.size(); i++) {
+				if (isDominated(node.children.get(i), costs))
+					return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * true if every cost in a is at most the matching cost in b
+	 */
+	private static boolean weaklyDominates(double[] a, double[] b) {
+		for (int i = 0; i < a.length; i++) {
+			if (a[i] > b[i])
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * true if the two cost vectors are equal
+	 */
+	private static boolean sameCosts(double[] a, double[] b) {
+		for (int i = 0; i < a.length; i++) {
+			if (a[i] != b[i])
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * pick a solution from the archive uniformly at random, walking down the tree by the sizes of the nodes
+	 */
+	@Override
+	public CandidateSolution randomMember(SplittableRandom random) {
+		if (size == 0)
+			return null;
+		Node node = root;
+		int index = random.nextInt(node.size);
+		while (!node.isLeaf()) {
+			for (Node child : node.children) {
+				if (index < child.size) {
+					node = child;
+					break;
+				}
+				index -= child.size;
+			}
+		}
+		return node.members.get(index).solution;
+	}
+
+	/**
+	 * collect the solutions held below a node
+	 */
+	private static void collect(Node node, List<CandidateSolution> solutions) {
+		if (node.isLeaf()) {
+			for (Member member : node.members) {
+				solutions.add(member.solution);
+			}
+		} else {
+			for (Node child : node.children) {
+				collect(child, solutions);
+			}
+		}
+	}
+
+	/**
+	 * get the set of solutions in the archive
+	 *
+	 * @return a new list holding the archived solutions
+	 */
+	@Override
+	public List<CandidateSolution> getArchive() {
+		ArrayList<CandidateSolution> solutions = new ArrayList<>(size);
+		if (root != null)
+			collect(root, solutions);
+		return solutions;
+	}
+
+	/**
+	 * the number of solutions in the archive
+	 */
+	@Override
+	public int size() {
+		return size;
+	}
+}
@@ -0,0 +1,71 @@
+package com.parker.david.archive;
+
+import com.parker.david.CandidateSolution;
+
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * the solution archive, holds the set of non-dominated solutions found so far. the Pareto Optimal set
+ */
+public interface SolutionArchive {
+
+	/**
+	 * attempt to add the solution to the archive. If the solution is not dominated by a solution in the archive,
+	 * and is not already in the archive, it gets added. When a new solution is added, any solutions that are
+	 * dominated by the new solution are removed from the archive.
+	 *
+	 * @param solution the solution which we attempt to insert into the archive
+	 * @return true if solution was inserted into archive, false if it was dominated by a solution in the archive
+	 */
+	boolean addIfNotDominated(CandidateSolution solution);
+
+	/**
+	 * count the solutions in the archive that dominate the given solution, without modifying the archive
+	 *
+	 * @param solution the solution to check
+	 * @return the number of archived solutions that dominate it, 0 if it is non-dominated
+	 */
+	int countDominating(CandidateSolution solution);
+
+	/**
+	 * count the solutions in the archive that dominate the given solution, but stop counting once the count passes a limit.
+	 * lets a caller that only needs to know whether the count is within a bound skip most of the archive
+	 *
+	 * @param solution the solution to check
+	 * @param limit    the largest count the caller is interested in
+	 * @return the exact count if it is at most limit, otherwise some value greater than limit
+	 */
+	int countDominating(CandidateSolution solution, int limit);
+
+	/**
+	 * whether any solution in the archive dominates a vector of fitnesses, stopping at the first that does.
+	 * answered from the archive's own structure, without copying it
+	 *
+	 * @param fitnesses the fitness for each objective, in the order the objectives were added
+	 * @return true if an archived solution dominates the fitnesses
+	 */
+	boolean isDominated(double[] fitnesses);
+
+	/**
+	 * pick a solution from the archive uniformly at random
+	 *
+	 * @param random the random number generator to use
+	 * @return a random archived solution, null if the archive is empty
+	 */
+	CandidateSolution randomMember(SplittableRandom random);
+
+	/**
+	 * get the set of solutions in the archive
+	 *
+	 * @return a list of the solutions, it must not be modified by the caller
+	 */
+	List<CandidateSolution> getArchive();
+
+	/**
+	 * the number of solutions in the archive
+	 *
+	 * @return the archive size
+	 */
+	int size();
+}
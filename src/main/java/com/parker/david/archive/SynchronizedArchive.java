@@ -0,0 +1,67 @@
+package com.parker.david.archive;
+
+import com.parker.david.CandidateSolution;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * wraps any archive so several search threads can share it, every call holds a single lock on the archive
+ */
+public class SynchronizedArchive implements SolutionArchive {
+
+	/**
+	 * the archive being shared
+	 */
+	private final SolutionArchive archive;
+
+	/**
+	 * constructor
+	 *
+	 * @param archive the archive to share, it must not be used directly while wrapped
+	 */
+	public SynchronizedArchive(SolutionArchive archive) {
+		this.archive = archive;
+	}
+
+	@Override
+	public synchronized boolean addIfNotDominated(CandidateSolution solution) {
+		return archive.addIfNotDominated(solution);
+	}
+
+	@Override
+	public synchronized int countDominating(CandidateSolution solution) {
+		return archive.countDominating(solution);
+	}
+
+	@Override
+	public synchronized int countDominating(CandidateSolution solution, int limit) {
+		return archive.countDominating(solution, limit);
+	}
+
+	@Override
+	public synchronized boolean isDominated(double[] fitnesses) {
+		return archive.isDominated(fitnesses);
+	}
+
+	@Override
+	public synchronized CandidateSolution randomMember(SplittableRandom random) {
+		return archive.randomMember(random);
+	}
+
+	/**
+	 * get the set of solutions in the archive
+	 *
+	 * @return a copy of the archived solutions, so it can be read while other threads insert
+	 */
+	@Override
+	public synchronized List<CandidateSolution> getArchive() {
+		return new ArrayList<>(archive.getArchive());
+	}
+
+	@Override
+	public synchronized int size() {
+		return archive.size();
+	}
+}
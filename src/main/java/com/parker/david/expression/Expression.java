@@ -0,0 +1,330 @@
+package com.parker.david.expression;
+
+import com.parker.david.PrimitiveObjectiveFunction;
+
+/**
+ * an arithmetic expression over the decision variables x0..xn, compiled once into a flat stack program.
+ * the program is a pair of arrays, an opcode and an operand per instruction, run in a single loop with no objects or
+ * virtual calls per step, on a stack kept per thread so an evaluation allocates nothing. constant sub-expressions are
+ * folded at compile time, and squares become multiplications. the expression can be used directly as an objective
+ * function
+ */
+public final class Expression implements PrimitiveObjectiveFunction {
+
+	/**
+	 * the instructions of the stack program
+	 */
+	static final int CONSTANT = 0;
+	static final int VARIABLE = 1;
+	static final int ADD = 2;
+	static final int SUBTRACT = 3;
+	static final int MULTIPLY = 4;
+	static final int DIVIDE = 5;
+	static final int NEGATE = 6;
+	static final int POWER = 7;
+	static final int SQUARE = 8;
+	static final int SQRT = 9;
+	static final int ABS = 10;
+	static final int EXP = 11;
+	static final int LOG = 12;
+	static final int SIN = 13;
+	static final int COS = 14;
+	static final int TAN = 15;
+	static final int MIN = 16;
+	static final int MAX = 17;
+
+	/**
+	 * the text the expression was compiled from
+	 */
+	private final String source;
+
+	/**
+	 * the opcode of each instruction
+	 */
+	private final int[] opcodes;
+
+	/**
+	 * the operand of each instruction, the value of a constant or the index of a variable
+	 */
+	private final double[] operands;
+
+	/**
+	 * the deepest the stack gets while running the program
+	 */
+	private final int stackSize;
+
+	/**
+	 * one more than the highest variable index used
+	 */
+	private final int variableCount;
+
+	/**
+	 * a stack for each thread evaluating through {@link #evaluate(double[])}, so an evaluation allocates nothing
+	 */
+	private final ThreadLocal<double[]> stacks;
+
+	/**
+	 * constructor, see {@link #compile(String)}
+	 */
+	Expression(String source, int[] opcodes, double[] operands, int stackSize, int variableCount) {
+		this.source = source;
+		this.opcodes = opcodes;
+		this.operands = operands;
+		this.stackSize = stackSize;
+		this.variableCount = variableCount;
+		this.stacks = ThreadLocal.withInitial(() -> new double[stackSize]);
+	}
+
+	/**
+	 * compile an expression such as {@code (x0 - 2)^2 + 3*sin(x1)}.
+	 * supports numbers, variables x0..xn, + - * / ^, parentheses, and the functions sqrt, abs, exp, log, sin, cos, tan,
+	 * min and max
+	 *
+	 * @param source the expression
+	 * @return the compiled expression
+	 * @throws IllegalArgumentException if the expression can't be parsed
+	 */
+	public static Expression compile(String source) {
+		return new ExpressionCompiler(source).compile();
+	}
+
+	/**
+	 * run the program for the given decision variables, on a stack kept for the calling thread
+	 *
+	 * @param x the decision variables
+	 * @return the value of the expression
+	 */
+	public double evaluate(double[] x) {
+		return evaluate(x, stacks.get());
+	}
+
+	/**
+	 * run the program for the given decision variables, on a stack the caller owns and may reuse between calls
+	 *
+	 * @param x     the decision variables
+	 * @param stack scratch space, at least {@link #getStackSize()} long, not shared with another thread during the call
+	 * @return the value of the expression
+	 */
+	public double evaluate(double[] x, double[] stack) {
+		final int[] opcodes = this.opcodes;
+		final double[] operands = this.operands;
+		int top = -1;
+		for (int i = 0; i < opcodes.length; i++) {
+			switch (opcodes[i]) {
+				case CONSTANT:
+					stack[++top] = operands[i];
+					break;
+				case VARIABLE:
+					stack[++top] = x[(int) operands[i]];
+					break;
+				case ADD:
+					stack[top - 1] += stack[top];
+					top--;
+					break;
+				case SUBTRACT:
+					stack[top - 1] -= stack[top];
+					top--;
+					break;
+				case MULTIPLY:
+					stack[top - 1] *= stack[top];
+					top--;
+					break;
+				case DIVIDE:
+					stack[top - 1] /= stack[top];
+					top--;
+					break;
+				case POWER:
+					stack[top - 1] = Math.pow(stack[top - 1], stack[top]);
+					top--;
+					break;
+				case MIN:
+					stack[top - 1] = Math.min(stack[top - 1], stack[top]);
+					top--;
+					break;
+				case MAX:
+					stack[top - 1] = Math.max(stack[top - 1], stack[top]);
+					top--;
+					break;
+				default:
+					stack[top] = applyUnary(opcodes[i], stack[top]);
+			}
+		}
+		return stack[0];
+	}
+
+	/**
+	 * the coefficients of the expression if it is affine, a weighted sum of the variables plus a constant, found by
+	 * running the program on weighted sums instead of values. a product or quotient stays affine as long as one side,
+	 * or the divisor, is constant, and any other instruction only if everything it applies to is constant
+	 *
+	 * @return the weight of each variable followed by the constant, {@link #getVariableCount()} + 1 values, or null if
+	 * the expression isn't affine
+	 */
+	public double[] affineCoefficients() {
+		final int constant = variableCount;
+		double[][] stack = new double[stackSize][];
+		int top = -1;
+		for (int i = 0; i < opcodes.length; i++) {
+			switch (opcodes[i]) {
+				case CONSTANT:
+					stack[++top] = new double[variableCount + 1];
+					stack[top][constant] = operands[i];
+					break;
+				case VARIABLE:
+					stack[++top] = new double[variableCount + 1];
+					stack[top][(int) operands[i]] = 1;
+					break;
+				case ADD:
+				case SUBTRACT:
+					for (int j = 0; j <= constant; j++) {
+						stack[top - 1][j] = applyBinary(opcodes[i], stack[top - 1][j], stack[top][j]);
+					}
+					top--;
+					break;
+				case MULTIPLY:
+					if (isConstant(stack[top - 1]))
+						stack[top - 1] = scale(stack[top], stack[top - 1][constant]);
+					else if (isConstant(stack[top]))
+						stack[top - 1] = scale(stack[top - 1], stack[top][constant]);
+					else
+						return null;
+					top--;
+					break;
+				case NEGATE:
+					for (int j = 0; j <= constant; j++) {
+						stack[top][j] = -stack[top][j];
+					}
+					break;
+				case DIVIDE:
+					if (!isConstant(stack[top]))
+						return null;
+					for (int j = 0; j <= constant; j++) {
+						stack[top - 1][j] /= stack[top][constant];
+					}
+					top--;
+					break;
+				case POWER:
+				case MIN:
+				case MAX:
+					if (!isConstant(stack[top - 1]) || !isConstant(stack[top]))
+						return null;
+					stack[top - 1][constant] = applyBinary(opcodes[i], stack[top - 1][constant], stack[top][constant]);
+					top--;
+					break;
+				default:
+					if (!isConstant(stack[top]))
+						return null;
+					stack[top][constant] = applyUnary(opcodes[i], stack[top][constant]);
+			}
+		}
+		return stack[0];
+	}
+
+	/**
+	 * whether a weighted sum has no variables in it
+	 */
+	private static boolean isConstant(double[] coefficients) {
+		for (int j = 0; j < coefficients.length - 1; j++) {
+			if (coefficients[j] != 0)
+				return false;
+		}
+		return true;
+	}
+
+	private static double[] scale(double[] coefficients, double factor) {
+		double[] scaled = new double[coefficients.length];
+		for (int j = 0; j < coefficients.length; j++) {
+			scaled[j] = coefficients[j] * factor;
+		}
+		return scaled;
+	}
+
+	/**
+	 * apply an instruction that takes one value
+	 */
+	static double applyUnary(int opcode, double value) {
+		switch (opcode) {
+			case NEGATE:
+				return -value;
+			case SQUARE:
+				return value * value;
+			case SQRT:
+				return Math.sqrt(value);
+			case ABS:
+				return Math.abs(value);
+			case EXP:
+				return Math.exp(value);
+			case LOG:
+				return Math.log(value);
+			case SIN:
+				return Math.sin(value);
+			case COS:
+				return Math.cos(value);
+			case TAN:
+				return Math.tan(value);
+			default:
+				throw new IllegalStateException("unknown instruction " + opcode);
+		}
+	}
+
+	/**
+	 * apply an instruction that takes two values
+	 */
+	static double applyBinary(int opcode, double left, double right) {
+		switch (opcode) {
+			case ADD:
+				return left + right;
+			case SUBTRACT:
+				return left - right;
+			case MULTIPLY:
+				return left * right;
+			case DIVIDE:
+				return left / right;
+			case POWER:
+				return Math.pow(left, right);
+			case MIN:
+				return Math.min(left, right);
+			case MAX:
+				return Math.max(left, right);
+			default:
+				throw new IllegalStateException("unknown instruction " + opcode);
+		}
+	}
+
+	/**
+	 * the value of the expression as an objective
+	 */
+	@Override
+	public double getFitness(double[] decisionVariables) {
+		return evaluate(decisionVariables);
+	}
+
+	/**
+	 * one more than the highest variable index used, the fewest decision variables the expression can be evaluated on
+	 */
+	public int getVariableCount() {
+		return variableCount;
+	}
+
+	/**
+	 * the deepest the stack gets while running the program, the shortest stack {@link #evaluate(double[], double[])} accepts
+	 */
+	public int getStackSize() {
+		return stackSize;
+	}
+
+	/**
+	 * the number of instructions in the compiled program
+	 */
+	public int size() {
+		return opcodes.length;
+	}
+
+	/**
+	 * the text the expression was compiled from
+	 */
+	@Override
+	public String toString() {
+		return source;
+	}
+}
@@ -0,0 +1,277 @@
+package com.parker.david.expression;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * compiles the text of an expression into a stack program. the text is parsed by recursive descent into a tree,
+ * constants are folded, and the tree is written out in postfix order
+ */
+class ExpressionCompiler {
+
+	/**
+	 * the functions that may be called by name, and the instruction and number of arguments of each
+	 */
+	private static final Map<String, int[]> functions = new HashMap<>();
+
+	static {
+		functions.put("sqrt", new int[]{Expression.SQRT, 1});
+		functions.put("abs", new int[]{Expression.ABS, 1});
+		functions.put("exp", new int[]{Expression.EXP, 1});
+		functions.put("log", new int[]{Expression.LOG, 1});
+		functions.put("sin", new int[]{Expression.SIN, 1});
+		functions.put("cos", new int[]{Expression.COS, 1});
+		functions.put("tan", new int[]{Expression.TAN, 1});
+		functions.put("min", new int[]{Expression.MIN, 2});
+		functions.put("max", new int[]{Expression.MAX, 2});
+	}
+
+	/**
+	 * a node of the parsed expression, a constant, a variable, or an instruction applied to its children
+	 */
+	private static class Node {
+		final int opcode;
+		final double operand;
+		final Node[] children;
+
+		Node(int opcode, double operand, Node... children) {
+			this.opcode = opcode;
+			this.operand = operand;
+			this.children = children;
+		}
+
+		boolean isConstant() {
+			return opcode == Expression.CONSTANT;
+		}
+	}
+
+	/**
+	 * the text being compiled, and the position of the parser in it
+	 */
+	private final String source;
+	private int position = 0;
+
+	/**
+	 * one more than the highest variable index seen
+	 */
+	private int variableCount = 0;
+
+	/**
+	 * the program being written
+	 */
+	private final ArrayList<Integer> opcodes = new ArrayList<>();
+	private final ArrayList<Double> operands = new ArrayList<>();
+
+	/**
+	 * constructor
+	 *
+	 * @param source the text of the expression
+	 */
+	ExpressionCompiler(String source) {
+		this.source = source;
+	}
+
+	/**
+	 * parse, fold and write out the expression
+	 */
+	Expression compile() {
+		Node root = parseSum();
+		skipSpaces();
+		if (position < source.length())
+			throw error("unexpected '" + source.charAt(position) + "'");
+
+		int stackSize = emit(fold(root));
+		int[] opcodeArray = new int[opcodes.size()];
+		double[] operandArray = new double[operands.size()];
+		for (int i = 0; i < opcodeArray.length; i++) {
+			opcodeArray[i] = opcodes.get(i);
+			operandArray[i] = operands.get(i);
+		}
+		return new Expression(source.trim(), opcodeArray, operandArray, stackSize, variableCount);
+	}
+
+	/**
+	 * sum := product (('+' | '-') product)*
+	 */
+	private Node parseSum() {
+		Node left = parseProduct();
+		while (true) {
+			if (accept('+'))
+				left = new Node(Expression.ADD, 0, left, parseProduct());
+			else if (accept('-'))
+				left = new Node(Expression.SUBTRACT, 0, left, parseProduct());
+			else
+				return left;
+		}
+	}
+
+	/**
+	 * product := unary (('*' | '/') unary)*
+	 */
+	private Node parseProduct() {
+		Node left = parseUnary();
+		while (true) {
+			if (accept('*'))
+				left = new Node(Expression.MULTIPLY, 0, left, parseUnary());
+			else if (accept('/'))
+				left = new Node(Expression.DIVIDE, 0, left, parseUnary());
+			else
+				return left;
+		}
+	}
+
+	/**
+	 * unary := ('-' | '+') unary | power
+	 */
+	private Node parseUnary() {
+		if (accept('-'))
+			return new Node(Expression.NEGATE, 0, parseUnary());
+		if (accept('+'))
+			return parseUnary();
+		return parsePower();
+	}
+
+	/**
+	 * power := primary ('^' unary)?, so powers group to the right and -x^2 is -(x^2)
+	 */
+	private Node parsePower() {
+		Node base = parsePrimary();
+		if (accept('^'))
+			return new Node(Expression.POWER, 0, base, parseUnary());
+		return base;
+	}
+
+	/**
+	 * primary := number | variable | function '(' arguments ')' | '(' sum ')'
+	 */
+	private Node parsePrimary() {
+		skipSpaces();
+		if (position >= source.length())
+			throw error("unexpected end of expression");
+
+		char next = source.charAt(position);
+		if (accept('(')) {
+			Node inner = parseSum();
+			expect(')');
+			return inner;
+		}
+		if (Character.isDigit(next) || next == '.')
+			return new Node(Expression.CONSTANT, parseNumber());
+		if (Character.isLetter(next)) {
+			int start = position;
+			while (position < source.length() && Character.isLetterOrDigit(source.charAt(position)))
+				position++;
+			String name = source.substring(start, position);
+
+			if (name.matches("x\\d+")) {
+				int index = Integer.parseInt(name.substring(1));
+				variableCount = Math.max(variableCount, index + 1);
+				return new Node(Expression.VARIABLE, index);
+			}
+			int[] function = functions.get(name);
+			if (function == null)
+				throw error("unknown name '" + name + "'");
+			expect('(');
+			Node[] arguments = new Node[function[1]];
+			for (int i = 0; i < arguments.length; i++) {
+				if (i > 0)
+					expect(',');
+				arguments[i] = parseSum();
+			}
+			expect(')');
+			return new Node(function[0], 0, arguments);
+		}
+		throw error("unexpected '" + next + "'");
+	}
+
+	/**
+	 * read a number such as 2, 0.5 or 1e-3
+	 */
+	private double parseNumber() {
+		int start = position;
+		while (position < source.length() && (Character.isDigit(source.charAt(position)) || source.charAt(position) == '.'))
+			position++;
+		if (position < source.length() && (source.charAt(position) == 'e' || source.charAt(position) == 'E')) {
+			position++;
+			if (position < source.length() && (source.charAt(position) == '+' || source.charAt(position) == '-'))
+				position++;
+			while (position < source.length() && Character.isDigit(source.charAt(position)))
+				position++;
+		}
+		try {
+			return Double.parseDouble(source.substring(start, position));
+		} catch (NumberFormatException e) {
+			throw error("bad number '" + source.substring(start, position) + "'");
+		}
+	}
+
+	/**
+	 * replace every instruction whose inputs are all constant by its value, and squares by multiplication
+	 */
+	private static Node fold(Node node) {
+		Node[] children = new Node[node.children.length];
+		boolean allConstant = children.length > 0;
+		for (int i = 0; i < children.length; i++) {
+			children[i] = fold(node.children[i]);
+			allConstant &= children[i].isConstant();
+		}
+
+		if (allConstant) {
+			double value = (children.length == 1) ? Expression.applyUnary(node.opcode, children[0].operand)
+					: Expression.applyBinary(node.opcode, children[0].operand, children[1].operand);
+			return new Node(Expression.CONSTANT, value);
+		}
+		if (node.opcode == Expression.POWER && children[1].isConstant()) {
+			double exponent = children[1].operand;
+			if (exponent == 1)
+				return children[0];
+			// x*x is exactly what Math.pow gives for a square, higher powers would round differently
+			if (exponent == 2)
+				return new Node(Expression.SQUARE, 0, children[0]);
+		}
+		return new Node(node.opcode, node.operand, children);
+	}
+
+	/**
+	 * write the node out in postfix order
+	 *
+	 * @return the deepest the stack gets while running the written instructions
+	 */
+	private int emit(Node node) {
+		int depth = 1;
+		for (int i = 0; i < node.children.length; i++) {
+			// each earlier child leaves one value on the stack below this one
+			depth = Math.max(depth, i + emit(node.children[i]));
+		}
+		opcodes.add(node.opcode);
+		operands.add(node.operand);
+		return depth;
+	}
+
+	private void skipSpaces() {
+		while (position < source.length() && Character.isWhitespace(source.charAt(position)))
+			position++;
+	}
+
+	/**
+	 * move past the character if it is next
+	 */
+	private boolean accept(char expected) {
+		skipSpaces();
+		if (position < source.length() && source.charAt(position) == expected) {
+			position++;
+			return true;
+		}
+		return false;
+	}
+
+	private void expect(char expected) {
+		if (!accept(expected))
+			throw error("expected '" + expected + "'");
+	}
+
+	private IllegalArgumentException error(String message) {
+		return new IllegalArgumentException(message + " at position " + position + " in expression: " + source);
+	}
+}
@@ -2,8 +2,11 @@ package com.parker.david.initialisation;
 
 import com.parker.david.*;
 import com.parker.david.Neighbourhood.SolutionFromNeighbourhoodGenerator;
+import com.parker.david.archive.ListArchive;
+import com.parker.david.archive.SolutionArchive;
 
 import java.util.ArrayList;
+import java.util.SplittableRandom;
 
 /**
  * an initial temperature setting that aims to have the first generated solution accepted
@@ -28,15 +31,22 @@ public class AcceptAll implements InitialTemperatureAssignment {
 	 */
 	private ArrayList<CandidateSolution> testSolutions;
 
+	/**
+	 * a random number generator
+	 */
+	private final SplittableRandom randomNumberGenerator;
+
 	/**
 	 * constructor
 	 *
 	 * @param acceptedSearchTerminationCount this is the number of solutions that must be accepted without a rejection to terminate the search for intial T
 	 * @param definedComparisonSolutions     a list of significant solutions which we seek to accept
+	 * @param randomNumberGenerator          the random number source for the acceptance tests
 	 */
-	public AcceptAll(int acceptedSearchTerminationCount, ArrayList<CandidateSolution> definedComparisonSolutions) {
+	public AcceptAll(int acceptedSearchTerminationCount, ArrayList<CandidateSolution> definedComparisonSolutions, SplittableRandom randomNumberGenerator) {
 		this.searchTerminator = acceptedSearchTerminationCount;
 		this.testSolutions = definedComparisonSolutions;
+		this.randomNumberGenerator = randomNumberGenerator;
 	}
 
 	/**
@@ -53,13 +63,16 @@ public class AcceptAll implements InitialTemperatureAssignment {
 	public double getInitialTemperature(CandidateSolution initialSolution, ObjectiveSet objectives, SolutionFromNeighbourhoodGenerator generator) {
 
 		//empty archive
-		SolutionArchive emptyArchive = new SolutionArchive();
+		SolutionArchive emptyArchive = new ListArchive();
+
+		//evaluate the specific solutions together as one batch
+		objectives.evaluate(testSolutions);
 
 		//test given specific solutions
 		double temperature = 0.005;
 		for (CandidateSolution testSolution : testSolutions) {
 			//while our temperature is too cool, increase the temperature
-			while (!AcceptanceComputer.isAccepted(emptyArchive, initialSolution, testSolution, temperature)) {
+			while (!AcceptanceComputer.isAccepted(emptyArchive, initialSolution, testSolution, temperature, randomNumberGenerator)) {
 				temperature *= increaseCoefficient;
 			}
 		}
@@ -70,9 +83,9 @@ public class AcceptAll implements InitialTemperatureAssignment {
 		while (acceptedCounter < searchTerminator) {
 
 			//if rejected, reset the counter and increase temperature until accepted
-			if (!AcceptanceComputer.isAccepted(emptyArchive, initialSolution, randomNeighbour, temperature)) {
+			if (!AcceptanceComputer.isAccepted(emptyArchive, initialSolution, randomNeighbour, temperature, randomNumberGenerator)) {
 				acceptedCounter = 0;
-				while (!AcceptanceComputer.isAccepted(emptyArchive, initialSolution, randomNeighbour, temperature)) {
+				while (!AcceptanceComputer.isAccepted(emptyArchive, initialSolution, randomNeighbour, temperature, randomNumberGenerator)) {
 					temperature *= increaseCoefficient;
 				}
 			}
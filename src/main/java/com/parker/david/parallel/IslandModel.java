@@ -0,0 +1,225 @@
+package com.parker.david.parallel;
+
+import com.parker.david.CandidateSolution;
+import com.parker.david.DbmosaStep;
+import com.parker.david.Neighbourhood.SolutionFromNeighbourhoodGenerator;
+import com.parker.david.SearchMetaInfo;
+import com.parker.david.acceptance.AcceptanceCriterion;
+import com.parker.david.archive.SolutionArchive;
+import com.parker.david.epoch.EpochController;
+import com.parker.david.search.TerminationController;
+import com.parker.david.temperature.TemperatureController;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * an island model of DBMOSA. every island is a complete search with its own archive, progress and temperature schedule,
+ * run on its own thread. every few epochs an island sends a few random members of its archive to the next island in a
+ * ring through a lock-free queue. the receiver offers them to its archive, and restarts from one that dominates its
+ * current solution. islands only communicate in these occasional batches, and at the end their fronts are merged
+ */
+public class IslandModel {
+
+	/**
+	 * a single island, a DBMOSA search with an inbox for migrants
+	 */
+	public static class Island {
+		/**
+		 * the iterations of this island's search, holding its current solution
+		 */
+		private final DbmosaStep step;
+
+		/**
+		 * the components of this island's search, none of them may be shared with another island
+		 */
+		private final SearchMetaInfo searchMeta;
+		private final TerminationController stoppingCriterion;
+		private final SolutionArchive archive;
+		private final AcceptanceCriterion acceptance;
+
+		/**
+		 * a random number generator for picking migrants
+		 */
+		private final SplittableRandom randomNumberGenerator;
+
+		/**
+		 * solutions sent here by the previous island, waiting to be taken in
+		 */
+		private final ConcurrentLinkedQueue<CandidateSolution> inbox = new ConcurrentLinkedQueue<>();
+
+		/**
+		 * the island migrants are sent to
+		 */
+		private Island neighbour;
+
+		/**
+		 * statistics on migration
+		 */
+		private int migrantsSent = 0;
+		private int migrantsReceived = 0;
+		private int migrantsArchived = 0;
+		private int restarts = 0;
+
+		/**
+		 * constructor
+		 *
+		 * @param searchMeta             the progress information of this island
+		 * @param tempControl            the temperature schedule of this island
+		 * @param initialSolution        the solution this island starts from
+		 * @param neighbourhoodGenerator the next solution generation method of this island
+		 * @param stoppingCriterion      decides when this island stops
+		 * @param epochEnd               decides when this island starts a new epoch
+		 * @param archive                the archive of this island
+		 * @param acceptance             the acceptance criterion of this island
+		 * @param randomNumberGenerator  the random number source for picking migrants
+		 */
+		public Island(SearchMetaInfo searchMeta, TemperatureController tempControl, CandidateSolution initialSolution, SolutionFromNeighbourhoodGenerator neighbourhoodGenerator, TerminationController stoppingCriterion, EpochController epochEnd, SolutionArchive archive, AcceptanceCriterion acceptance, SplittableRandom randomNumberGenerator) {
+			this.step = new DbmosaStep(searchMeta, tempControl, initialSolution, neighbourhoodGenerator, epochEnd, archive, acceptance);
+			this.searchMeta = searchMeta;
+			this.stoppingCriterion = stoppingCriterion;
+			this.archive = archive;
+			this.acceptance = acceptance;
+			this.randomNumberGenerator = randomNumberGenerator;
+		}
+
+		/**
+		 * the DBMOSA search of this island, migrating every so many epochs
+		 */
+		private void search(int migrationInterval, int migrantCount) {
+			archive.addIfNotDominated(step.getSolution()); // add in our initial solution
+
+			while (stoppingCriterion.continueSearch(searchMeta)) {
+				if (step.step()) {
+					receiveMigrants();
+					if (searchMeta.getEpoch() % migrationInterval == 0)
+						sendMigrants(migrantCount);
+				}
+			}
+		}
+
+		/**
+		 * send random members of the archive to the neighbouring island
+		 */
+		private void sendMigrants(int migrantCount) {
+			if (neighbour == null || neighbour == this)
+				return;
+			for (int i = 0; i < migrantCount && i < archive.size(); i++) {
+				neighbour.inbox.add(archive.randomMember(randomNumberGenerator));
+				migrantsSent++;
+			}
+		}
+
+		/**
+		 * offer any waiting migrants to the archive, and restart from a migrant that dominates the current solution
+		 */
+		private void receiveMigrants() {
+			boolean archiveChanged = false;
+			CandidateSolution migrant;
+			while ((migrant = inbox.poll()) != null) {
+				migrantsReceived++;
+				if (archive.addIfNotDominated(migrant)) {
+					archiveChanged = true;
+					migrantsArchived++;
+				}
+				if (migrant.dominates(step.getSolution())) {
+					step.setSolution(migrant);
+					restarts++;
+				}
+			}
+			if (archiveChanged)
+				acceptance.archiveChanged();
+		}
+
+		/**
+		 * the archive of this island
+		 */
+		public SolutionArchive getArchive() {
+			return archive;
+		}
+
+		/**
+		 * the progress of this island
+		 */
+		public SearchMetaInfo getSearchMeta() {
+			return searchMeta;
+		}
+	}
+
+	/**
+	 * the islands, each sends migrants to the next and the last to the first
+	 */
+	private final List<Island> islands;
+
+	/**
+	 * the number of epochs between migrations
+	 */
+	private final int migrationInterval;
+
+	/**
+	 * the number of solutions sent per migration
+	 */
+	private final int migrantCount;
+
+	/**
+	 * constructor
+	 *
+	 * @param islands           the islands, each sends migrants to the next and the last to the first
+	 * @param migrationInterval the number of epochs between migrations
+	 * @param migrantCount      the number of solutions sent per migration
+	 */
+	public IslandModel(List<Island> islands, int migrationInterval, int migrantCount) {
+		this.islands = new ArrayList<>(islands);
+		this.migrationInterval = Math.max(1, migrationInterval);
+		this.migrantCount = migrantCount;
+		for (int i = 0; i < this.islands.size(); i++) {
+			this.islands.get(i).neighbour = this.islands.get((i + 1) % this.islands.size());
+		}
+	}
+
+	/**
+	 * run every island until it stops, then merge their fronts
+	 *
+	 * @param executor the executor the islands are run on, it needs a thread per island to run them all at once
+	 * @param merged   an empty archive the fronts of the islands are merged into
+	 * @return a summary of the search
+	 */
+	public String run(ExecutorService executor, SolutionArchive merged) throws InterruptedException, ExecutionException {
+		List<Callable<Void>> searches = new ArrayList<>();
+		for (Island island : islands) {
+			searches.add(() -> {
+				island.search(migrationInterval, migrantCount);
+				return null;
+			});
+		}
+		for (Future<Void> future : executor.invokeAll(searches)) {
+			future.get();
+		}
+
+		StringBuilder summary = new StringBuilder();
+		for (int i = 0; i < islands.size(); i++) {
+			Island island = islands.get(i);
+			island.archive.getArchive().forEach(merged::addIfNotDominated);
+			summary.append("island ").append(i).append(": ").append(island.searchMeta.getEpoch()).append(" epochs, ")
+					.append(island.searchMeta.getIteration()).append(" iterations, final temperature ").append(island.searchMeta.getTemperature())
+					.append(", ").append(island.archive.size()).append(" solutions, migrants sent ").append(island.migrantsSent)
+					.append(", received ").append(island.migrantsReceived).append(", archived ").append(island.migrantsArchived)
+					.append(", restarts ").append(island.restarts).append("\n");
+		}
+		summary.append("final set of (").append(merged.size()).append(") solutions").append("\n");
+		return summary.toString();
+	}
+
+	/**
+	 * the islands
+	 */
+	public List<Island> getIslands() {
+		return islands;
+	}
+}
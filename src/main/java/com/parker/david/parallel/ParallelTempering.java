@@ -0,0 +1,261 @@
+package com.parker.david.parallel;
+
+import com.parker.david.AcceptanceComputer;
+import com.parker.david.CandidateSolution;
+import com.parker.david.DbmosaStep;
+import com.parker.david.Neighbourhood.SolutionFromNeighbourhoodGenerator;
+import com.parker.david.SearchMetaInfo;
+import com.parker.david.acceptance.AcceptanceCriterion;
+import com.parker.david.archive.SolutionArchive;
+import com.parker.david.epoch.EpochController;
+import com.parker.david.search.TerminationController;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * replica exchange (parallel tempering) DBMOSA. several chains run at once, each at its own fixed temperature on its
+ * own thread, and all of them insert into one shared archive. after every round of iterations, neighbouring chains on
+ * the temperature ladder propose to swap their current solutions, accepted with the usual replica exchange rule using
+ * the same dominance energy as the moves themselves. hot chains explore, cold chains refine, and good solutions found
+ * hot migrate down the ladder.
+ * the shared archive must be safe to use from several threads, and acceptance criteria must not carry domination
+ * counts between iterations, since other chains change the archive.
+ * <p>
+ * the chains of a round insert into the shared archive in whatever order their threads reach it, and each chain's
+ * acceptance sees the insertions of the others so far, so a seeded run is not reproducible when the chains run at once.
+ * given an executor with a single thread the chains run one after another in ladder order, and a seeded run is
+ * reproducible
+ */
+public class ParallelTempering {
+
+	/**
+	 * a single chain of the search at a fixed temperature
+	 */
+	public static class Chain {
+		/**
+		 * the solution this chain starts from
+		 */
+		private final CandidateSolution initialSolution;
+
+		/**
+		 * the iterations of this chain against the shared archive, holding its current solution, set once the chain is
+		 * added to a search
+		 */
+		private DbmosaStep step = null;
+
+		/**
+		 * the progress of this chain, holds its temperature
+		 */
+		private final SearchMetaInfo searchMeta;
+
+		/**
+		 * the components used by this chain, none of them may be shared with another chain
+		 */
+		private final SolutionFromNeighbourhoodGenerator neighbourhoodGenerator;
+		private final AcceptanceCriterion acceptance;
+		private final EpochController epochEnd;
+
+		/**
+		 * constructor
+		 *
+		 * @param temperature            the fixed temperature of this chain
+		 * @param initialSolution        the solution this chain starts from
+		 * @param searchMeta             the progress information of this chain, its temperature is set here
+		 * @param neighbourhoodGenerator the next solution generation method of this chain
+		 * @param acceptance             the acceptance criterion of this chain
+		 * @param epochEnd               decides when this chain starts a new epoch, which adaptive neighbourhoods use
+		 */
+		public Chain(double temperature, CandidateSolution initialSolution, SearchMetaInfo searchMeta, SolutionFromNeighbourhoodGenerator neighbourhoodGenerator, AcceptanceCriterion acceptance, EpochController epochEnd) {
+			this.initialSolution = initialSolution;
+			this.searchMeta = searchMeta;
+			this.neighbourhoodGenerator = neighbourhoodGenerator;
+			this.acceptance = acceptance;
+			this.epochEnd = epochEnd;
+			searchMeta.setTemperature(temperature);
+		}
+
+		/**
+		 * run a number of iterations at this chain's temperature, which no temperature schedule changes
+		 */
+		private void iterate(int iterations) {
+			for (int i = 0; i < iterations; i++) {
+				step.step();
+			}
+		}
+
+		/**
+		 * the current solution of this chain
+		 */
+		public CandidateSolution getSolution() {
+			return (step == null) ? initialSolution : step.getSolution();
+		}
+
+		/**
+		 * the progress of this chain
+		 */
+		public SearchMetaInfo getSearchMeta() {
+			return searchMeta;
+		}
+	}
+
+	/**
+	 * the chains, ordered from coldest to hottest
+	 */
+	private final List<Chain> chains;
+
+	/**
+	 * the archive shared by every chain
+	 */
+	private final SolutionArchive archive;
+
+	/**
+	 * the number of iterations each chain runs between swap proposals
+	 */
+	private final int swapInterval;
+
+	/**
+	 * a random number generator for the swap decisions
+	 */
+	private final SplittableRandom randomNumberGenerator;
+
+	/**
+	 * swap proposals and acceptances between chain i and chain i+1
+	 */
+	private final long[] swapsProposed;
+	private final long[] swapsAccepted;
+
+	/**
+	 * constructor
+	 *
+	 * @param chains                the chains, ordered from coldest to hottest
+	 * @param archive               the archive shared by every chain, must be safe to use from several threads
+	 * @param swapInterval          the number of iterations each chain runs between swap proposals
+	 * @param randomNumberGenerator the random number source for the swap decisions
+	 */
+	public ParallelTempering(List<Chain> chains, SolutionArchive archive, int swapInterval, SplittableRandom randomNumberGenerator) {
+		for (int i = 1; i < chains.size(); i++) {
+			if (!(chains.get(i - 1).searchMeta.getTemperature() < chains.get(i).searchMeta.getTemperature()))
+				throw new IllegalArgumentException("chains must be ordered from coldest to hottest with distinct temperatures");
+		}
+		this.chains = new ArrayList<>(chains);
+		this.archive = archive;
+		for (Chain chain : chains) {
+			chain.step = new DbmosaStep(chain.searchMeta, null, chain.initialSolution, chain.neighbourhoodGenerator, chain.epochEnd, archive, chain.acceptance);
+		}
+		this.swapInterval = Math.max(1, swapInterval);
+		this.randomNumberGenerator = randomNumberGenerator;
+		this.swapsProposed = new long[Math.max(0, chains.size() - 1)];
+		this.swapsAccepted = new long[Math.max(0, chains.size() - 1)];
+	}
+
+	/**
+	 * a geometric ladder of temperatures, evenly spaced on a log scale from the coldest to the hottest
+	 *
+	 * @param coldest the lowest temperature
+	 * @param hottest the highest temperature
+	 * @param count   the number of temperatures
+	 * @return the temperatures from coldest to hottest
+	 */
+	public static double[] geometricLadder(double coldest, double hottest, int count) {
+		double[] temperatures = new double[count];
+		for (int i = 0; i < count; i++) {
+			temperatures[i] = (count == 1) ? coldest : coldest * Math.pow(hottest / coldest, (double) i / (count - 1));
+		}
+		return temperatures;
+	}
+
+	/**
+	 * run the search until the stopping criterion stops every chain, or the maximum number of rounds is reached
+	 *
+	 * @param executor          the executor the chains are run on, it needs a thread per chain to run them all at once
+	 * @param stoppingCriterion checked against each chain after every round
+	 * @param maxRounds         the most rounds of iterations and swaps to run
+	 * @return a summary of the search
+	 */
+	public String run(ExecutorService executor, TerminationController stoppingCriterion, int maxRounds) throws InterruptedException, ExecutionException {
+		for (Chain chain : chains) {
+			archive.addIfNotDominated(chain.getSolution());
+		}
+
+		List<Callable<Void>> rounds = new ArrayList<>();
+		for (Chain chain : chains) {
+			rounds.add(() -> {
+				chain.iterate(swapInterval);
+				return null;
+			});
+		}
+
+		int round = 0;
+		while (round < maxRounds && anyChainContinues(stoppingCriterion)) {
+			for (Future<Void> future : executor.invokeAll(rounds)) {
+				future.get();
+			}
+			//alternate between swapping even and odd pairs, so every neighbouring pair gets a chance
+			for (int i = round % 2; i + 1 < chains.size(); i += 2) {
+				proposeSwap(i);
+			}
+			round++;
+		}
+
+		StringBuilder summary = new StringBuilder();
+		summary.append("parallel tempering rounds: ").append(round).append("\n");
+		for (int i = 0; i < chains.size(); i++) {
+			SearchMetaInfo searchMeta = chains.get(i).searchMeta;
+			summary.append("chain ").append(i).append(" at temperature ").append(searchMeta.getTemperature())
+					.append(": ").append(searchMeta.getIteration()).append(" iterations");
+			if (i < swapsProposed.length)
+				summary.append(", swaps with next ").append(swapsAccepted[i]).append("/").append(swapsProposed[i]);
+			summary.append("\n");
+		}
+		summary.append("final set of (").append(archive.size()).append(") solutions").append("\n");
+		return summary.toString();
+	}
+
+	/**
+	 * true if the stopping criterion would let any chain continue
+	 */
+	private boolean anyChainContinues(TerminationController stoppingCriterion) {
+		for (Chain chain : chains) {
+			if (stoppingCriterion.continueSearch(chain.searchMeta))
+				return true;
+		}
+		return false;
+	}
+
+	/**
+	 * propose swapping the solutions of chain i and the next hotter chain.
+	 * the swap is accepted with probability min(1, exp(-(1/T_cold - 1/T_hot) * deltaE)), where deltaE is the energy
+	 * difference of moving from the cold chain's solution to the hot chain's, the same energy used for moves.
+	 * this is the move acceptance rule at an effective temperature of 1/(1/T_cold - 1/T_hot)
+	 */
+	private void proposeSwap(int i) {
+		Chain cold = chains.get(i);
+		Chain hot = chains.get(i + 1);
+		double effectiveTemperature = 1 / (1 / cold.searchMeta.getTemperature() - 1 / hot.searchMeta.getTemperature());
+
+		CandidateSolution coldSolution = cold.getSolution();
+		CandidateSolution hotSolution = hot.getSolution();
+		double deltaE = AcceptanceComputer.getEnergyDifference(archive.size(), archive.countDominating(coldSolution),
+				archive.countDominating(hotSolution), hotSolution.compareTo(coldSolution));
+
+		swapsProposed[i]++;
+		if (AcceptanceComputer.isAccepted(deltaE, effectiveTemperature, randomNumberGenerator.nextDouble())) {
+			cold.step.setSolution(hotSolution);
+			hot.step.setSolution(coldSolution);
+			swapsAccepted[i]++;
+		}
+	}
+
+	/**
+	 * the chains, ordered from coldest to hottest
+	 */
+	public List<Chain> getChains() {
+		return chains;
+	}
+}
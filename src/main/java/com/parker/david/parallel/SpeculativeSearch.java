@@ -0,0 +1,159 @@
+package com.parker.david.parallel;
+
+import com.parker.david.CandidateSolution;
+import com.parker.david.DbmosaStep;
+import com.parker.david.Neighbourhood.SolutionFromNeighbourhoodGenerator;
+import com.parker.david.SearchMetaInfo;
+import com.parker.david.acceptance.AcceptanceCriterion;
+import com.parker.david.archive.SolutionArchive;
+import com.parker.david.epoch.EpochController;
+import com.parker.david.search.TerminationController;
+import com.parker.david.temperature.TemperatureController;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * the DBMOSA loop with speculative move evaluation. late in a search most moves are rejected, and a rejection changes
+ * neither the current solution nor the neighbourhood until an epoch ends. so the next several neighbours are generated
+ * up front from the current solution, and their objectives evaluated in parallel. the moves are then put through the
+ * acceptance criterion in order, and the rest of the window is thrown away after the first move that is accepted or ends
+ * an epoch, since the moves after it would have been generated differently.
+ * every move draws from its own random stream, seeded in iteration order, and a thrown away move's seed is reused for
+ * the move that replaces it. so the search follows exactly the same trajectory whatever the speculation depth, only
+ * faster when objective evaluation is expensive. objective functions must be safe to evaluate from several threads.
+ * <p>
+ * after a rejection that ends an epoch the current solution hasn't changed, so a move regenerated from a thrown away
+ * move's seed is often the same move, unless the neighbourhood adapted to the new epoch. a regenerated move with the
+ * same decision variables as the thrown away one is replaced by it, so its objectives aren't evaluated again
+ */
+public class SpeculativeSearch {
+
+	/**
+	 * the executor neighbours are evaluated on
+	 */
+	private final ExecutorService executor;
+
+	/**
+	 * the number of moves generated and evaluated ahead of time
+	 */
+	private final int depth;
+
+	/**
+	 * seeds the random stream of each move, in iteration order
+	 */
+	private final SplittableRandom moveSeeds;
+
+	/**
+	 * seeds drawn for moves that have not been committed yet, oldest first
+	 */
+	private final ArrayDeque<Long> pendingSeeds = new ArrayDeque<>();
+
+	/**
+	 * the evaluated moves thrown away after a rejection ended an epoch, one per pending seed from the oldest, to be reused
+	 * if the same moves are generated again
+	 */
+	private final List<CandidateSolution> evaluatedLeftovers = new ArrayList<>();
+
+	/**
+	 * statistics on the speculation
+	 */
+	private long windows = 0;
+	private long movesEvaluated = 0;
+	private long movesDiscarded = 0;
+	private long movesReused = 0;
+
+	/**
+	 * constructor
+	 *
+	 * @param executor  the executor neighbours are evaluated on
+	 * @param depth     the number of moves generated and evaluated ahead of time, 1 for the plain sequential search
+	 * @param moveSeeds the random number source seeding each move
+	 */
+	public SpeculativeSearch(ExecutorService executor, int depth, SplittableRandom moveSeeds) {
+		this.executor = executor;
+		this.depth = Math.max(1, depth);
+		this.moveSeeds = moveSeeds;
+	}
+
+	/**
+	 * run the search, the same as the sequential DBMOSA loop
+	 *
+	 * @return the final solution of the search
+	 */
+	public CandidateSolution search(SearchMetaInfo searchMeta, TemperatureController tempControl, CandidateSolution solution, SolutionFromNeighbourhoodGenerator neighbourhoodGenerator, TerminationController stoppingCriterion, EpochController epochEnd, SolutionArchive archive, AcceptanceCriterion acceptance, int maxArchiveSize) throws InterruptedException, ExecutionException {
+
+		archive.addIfNotDominated(solution); // add in our initial solution
+		DbmosaStep step = new DbmosaStep(searchMeta, tempControl, solution, neighbourhoodGenerator, epochEnd, archive, acceptance);
+
+		while (true) {
+			//generate the next moves from the current solution, each from its own stream
+			while (pendingSeeds.size() < depth) {
+				pendingSeeds.add(moveSeeds.nextLong());
+			}
+			List<CandidateSolution> window = new ArrayList<>(depth);
+			for (long seed : pendingSeeds) {
+				CandidateSolution newSolution = neighbourhoodGenerator.neighbourhoodSolution(step.getSolution(), new SplittableRandom(seed));
+				int position = window.size();
+				if (newSolution != null && position < evaluatedLeftovers.size()) {
+					CandidateSolution leftover = evaluatedLeftovers.get(position);
+					if (leftover != null && leftover.isEqual(newSolution)) {
+						newSolution = leftover;
+						movesReused++;
+					}
+				}
+				window.add(newSolution);
+			}
+			evaluatedLeftovers.clear();
+
+			//evaluate them all at once, the reused moves are evaluated already
+			List<Callable<double[]>> evaluations = new ArrayList<>(depth);
+			for (CandidateSolution newSolution : window) {
+				if (newSolution != null && !newSolution.isEvaluated())
+					evaluations.add(newSolution::getFitnessValues);
+			}
+			for (Future<double[]> future : executor.invokeAll(evaluations)) {
+				future.get();
+			}
+			windows++;
+			movesEvaluated += evaluations.size();
+
+			//commit the moves in order, until one of them changes the current solution or the neighbourhood
+			int committed = 0;
+			boolean stopped = false;
+			for (CandidateSolution newSolution : window) {
+				if (!stoppingCriterion.continueSearch(searchMeta) || (maxArchiveSize > 0 && archive.size() >= maxArchiveSize)) {
+					stopped = true;
+					break;
+				}
+				pendingSeeds.poll();
+				committed++;
+
+				boolean newEpoch = step.decide(newSolution);
+				if (step.lastAccepted())
+					break;
+				if (newEpoch) {
+					evaluatedLeftovers.addAll(window.subList(committed, window.size()));
+					break;
+				}
+			}
+			movesDiscarded += window.size() - committed;
+			if (stopped)
+				return step.getSolution();
+		}
+	}
+
+	/**
+	 * summary of the speculation, for the search output
+	 */
+	@Override
+	public String toString() {
+		return "speculation depth " + depth + ": " + windows + " windows, " + movesEvaluated + " moves evaluated, " + movesDiscarded + " discarded, " + movesReused + " reused";
+	}
+}